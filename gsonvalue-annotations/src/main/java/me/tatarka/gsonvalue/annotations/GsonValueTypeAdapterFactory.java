@@ -5,7 +5,12 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface GsonValueTypeAdapterFactory {
+    /**
+     * Cache the adapters of non-generic classes for each {@code Gson} instance, instead of creating
+     * a new one each time the factory is asked.
+     */
+    boolean cacheAdapters() default false;
 }
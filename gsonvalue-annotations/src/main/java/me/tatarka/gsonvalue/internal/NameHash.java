@@ -0,0 +1,172 @@
+package me.tatarka.gsonvalue.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A perfect hash of a fixed set of property names. Names are hashed to a bucket, and each bucket has
+ * a displacement that moves all of it's names to distinct slots. The annotation processor computes
+ * it for generated adapters and {@code me.tatarka.gsonvalue.stream.NameTable} looks names up with
+ * it, both through this class so they always agree.
+ * <p>
+ * This is not part of the public api and may change at any time.
+ */
+public final class NameHash {
+    public static final int DEFAULT_SEED = 0x811c9dc5;
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+    private static final int MAX_SEEDS = 1 << 8;
+
+    public final int seed;
+    public final int[] displacements;
+
+    private NameHash(int seed, int[] displacements) {
+        this.seed = seed;
+        this.displacements = displacements;
+    }
+
+    /**
+     * Computes the seed and displacements of a perfect hash of the given names.
+     *
+     * @throws IllegalArgumentException if there are duplicate names.
+     */
+    public static NameHash compute(String[] names) {
+        if (new HashSet<>(Arrays.asList(names)).size() != names.length) {
+            throw new IllegalArgumentException("Duplicate names: " + Arrays.toString(names));
+        }
+        int slotCount = slotCount(names.length);
+        int bucketCount = bucketCount(names.length);
+        for (int seed = DEFAULT_SEED; seed != DEFAULT_SEED + MAX_SEEDS; seed++) {
+            int[] displacements = computeDisplacements(names, seed, slotCount, bucketCount);
+            if (displacements != null) {
+                return new NameHash(seed, displacements);
+            }
+        }
+        throw new IllegalArgumentException("No perfect hash found for " + Arrays.toString(names));
+    }
+
+    /**
+     * Adds a char to the hash of a name.
+     */
+    public static int hash(int h, char c) {
+        return (h ^ c) * 0x01000193;
+    }
+
+    /**
+     * Returns the hash of a name, starting from the given seed.
+     */
+    public static int hash(int seed, String name) {
+        int h = seed;
+        for (int i = 0; i < name.length(); i++) {
+            h = hash(h, name.charAt(i));
+        }
+        return h;
+    }
+
+    /**
+     * Returns the slot of a name's hash, given the displacements of it's hash and the number of slots
+     * minus one.
+     */
+    public static int slot(int h, int[] displacements, int slotMask) {
+        return mix(h ^ displacements[bucket(h, displacements.length - 1)]) & slotMask;
+    }
+
+    /**
+     * Returns the number of slots of a table of the given number of names, a power of two.
+     */
+    public static int slotCount(int size) {
+        return powerOfTwo(Math.max(size * 2, 1));
+    }
+
+    /**
+     * Returns the number of displacements of a hash of the given number of names, a power of two.
+     */
+    public static int bucketCount(int size) {
+        return powerOfTwo(Math.max((size + 3) / 4, 1));
+    }
+
+    private static int[] computeDisplacements(String[] names, int seed, int slotCount, int bucketCount) {
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<Integer>());
+        }
+        int[] hashes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            hashes[i] = hash(seed, names[i]);
+            buckets.get(bucket(hashes[i], bucketCount - 1)).add(i);
+        }
+        Integer[] order = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            order[i] = i;
+        }
+        final List<List<Integer>> finalBuckets = buckets;
+        // Place the largest buckets first, while there's the most room.
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return finalBuckets.get(b).size() - finalBuckets.get(a).size();
+            }
+        });
+
+        int[] displacements = new int[bucketCount];
+        boolean[] used = new boolean[slotCount];
+        int[] slots = new int[names.length];
+        for (int bucket : order) {
+            List<Integer> members = buckets.get(bucket);
+            if (members.isEmpty()) {
+                break;
+            }
+            int displacement = 0;
+            while (!place(members, hashes, displacement, slotCount - 1, used, slots)) {
+                displacement++;
+                if (displacement == MAX_DISPLACEMENT) {
+                    return null;
+                }
+            }
+            displacements[bucket] = displacement;
+        }
+        return displacements;
+    }
+
+    private static boolean place(List<Integer> members, int[] hashes, int displacement, int slotMask, boolean[] used, int[] slots) {
+        int placed = 0;
+        for (int member : members) {
+            int slot = mix(hashes[member] ^ displacement) & slotMask;
+            if (used[slot]) {
+                break;
+            }
+            used[slot] = true;
+            slots[placed++] = slot;
+        }
+        if (placed == members.size()) {
+            return true;
+        }
+        for (int i = 0; i < placed; i++) {
+            used[slots[i]] = false;
+        }
+        return false;
+    }
+
+    private static int bucket(int h, int bucketMask) {
+        return (h ^ (h >>> 16)) & bucketMask;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int powerOfTwo(int n) {
+        int result = 1;
+        while (result < n) {
+            result <<= 1;
+        }
+        return result;
+    }
+}
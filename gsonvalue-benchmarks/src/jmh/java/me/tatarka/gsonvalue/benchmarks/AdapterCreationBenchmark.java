@@ -0,0 +1,109 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.benchmarks.model.BenchmarkTypeAdapterFactory;
+import me.tatarka.gsonvalue.benchmarks.model.Generic;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating adapters for a generic value class, which happens once per parameterization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdapterCreationBenchmark {
+    private static final TypeToken<Generic<String>> STRING_TYPE = new TypeToken<Generic<String>>() {};
+    private static final TypeToken<Generic<Integer>> INTEGER_TYPE = new TypeToken<Generic<Integer>>() {};
+
+    private ValueTypeAdapterFactory factory;
+    private TypeAdapterFactory generatedFactory;
+    private Gson gson;
+    private Constructor<?> constructor;
+    private MethodHandle methodHandle;
+
+    @Setup
+    public void setup() throws Exception {
+        // Only one adapter is cached per gson instance, so alternating between two types always
+        // creates a new adapter.
+        factory = new ValueTypeAdapterFactory(1);
+        gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+        generatedFactory = BenchmarkTypeAdapterFactory.create();
+        Class<?> adapterClass = adapterClass(STRING_TYPE);
+        constructor = adapterClass.getConstructor(Gson.class, TypeToken.class);
+        methodHandle = MethodHandles.publicLookup()
+                .findConstructor(adapterClass, MethodType.methodType(void.class, Gson.class, TypeToken.class))
+                .asType(MethodType.methodType(TypeAdapter.class, Gson.class, TypeToken.class));
+    }
+
+    /**
+     * Creates the adapters through {@link ValueTypeAdapterFactory}, which finds them in the
+     * compile-time index.
+     */
+    @Benchmark
+    public void factory(Blackhole bh) {
+        bh.consume(factory.create(gson, STRING_TYPE));
+        bh.consume(factory.create(gson, INTEGER_TYPE));
+    }
+
+    /**
+     * Creates the adapters with the factory generated by {@code @GsonValueTypeAdapterFactory}.
+     */
+    @Benchmark
+    public void generated(Blackhole bh) {
+        bh.consume(generatedFactory.create(gson, STRING_TYPE));
+        bh.consume(generatedFactory.create(gson, INTEGER_TYPE));
+    }
+
+    /**
+     * Invokes a constructor found once, like {@link ValueTypeAdapterFactory} does for adapters that
+     * aren't indexed.
+     */
+    @Benchmark
+    public void cachedConstructor(Blackhole bh) throws Exception {
+        bh.consume(constructor.newInstance(gson, STRING_TYPE));
+        bh.consume(constructor.newInstance(gson, INTEGER_TYPE));
+    }
+
+    /**
+     * Invokes a method handle to the constructor found once, the alternative to
+     * {@link #cachedConstructor(Blackhole)} where {@code java.lang.invoke} is available.
+     */
+    @Benchmark
+    public void methodHandle(Blackhole bh) throws Throwable {
+        bh.consume((TypeAdapter<?>) methodHandle.invokeExact(gson, (TypeToken<?>) STRING_TYPE));
+        bh.consume((TypeAdapter<?>) methodHandle.invokeExact(gson, (TypeToken<?>) INTEGER_TYPE));
+    }
+
+    /**
+     * Finds and invokes the adapter's constructor on every call, like {@link ValueTypeAdapterFactory}
+     * used to.
+     */
+    @Benchmark
+    public void reflective(Blackhole bh) throws Exception {
+        bh.consume(reflectiveCreate(STRING_TYPE));
+        bh.consume(reflectiveCreate(INTEGER_TYPE));
+    }
+
+    private TypeAdapter<?> reflectiveCreate(TypeToken<?> type) throws Exception {
+        return (TypeAdapter<?>) adapterClass(type)
+                .getConstructor(Gson.class, TypeToken.class)
+                .newInstance(gson, type);
+    }
+
+    private static Class<?> adapterClass(TypeToken<?> type) throws ClassNotFoundException {
+        Class<?> rawType = type.getRawType();
+        return Class.forName(rawType.getPackage().getName() + ".ValueTypeAdapter_" + rawType.getSimpleName());
+    }
+}
@@ -0,0 +1,87 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import me.tatarka.gsonvalue.benchmarks.model.Level1;
+import me.tatarka.gsonvalue.stream.ParallelNdjsonReader;
+import me.tatarka.gsonvalue.stream.Utf8JsonReader;
+import me.tatarka.gsonvalue.stream.ValueCallback;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading newline-delimited json with one {@link Utf8JsonReader} and with a
+ * {@link ParallelNdjsonReader} on a pool of the given number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NdjsonBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int threads;
+
+    /**
+     * The approximate size of the input.
+     */
+    @Param({"10000000"})
+    public int payloadBytes;
+
+    private TypeAdapter<Level1> adapter;
+    private ExecutorService executor;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        Gson gson = Payloads.gson("generated");
+        adapter = gson.getAdapter(Level1.class);
+        executor = Executors.newFixedThreadPool(threads);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; out.size() < payloadBytes; i++) {
+            out.write(adapter.toJson(Payloads.level1(i)).getBytes(Charset.forName("UTF-8")));
+            out.write('\n');
+        }
+        json = out.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public List<Level1> sequential() throws IOException {
+        List<Level1> result = new ArrayList<>();
+        Utf8JsonReader in = new Utf8JsonReader(json);
+        while (in.hasNext()) {
+            result.add(in.read(adapter));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Level1> parallel() throws IOException {
+        final List<Level1> result = new ArrayList<>();
+        new ParallelNdjsonReader<>(adapter, executor).read(new ByteArrayInputStream(json), new ValueCallback<Level1>() {
+            @Override
+            public void onValue(Level1 value) {
+                result.add(value);
+            }
+
+            @Override
+            public void onError(long offset, Exception e) throws IOException {
+                throw new IOException("Malformed line at " + offset, e);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.benchmarks.model.Level1;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing a 5-level nested model, with generated adapters calling each other
+ * directly or through a wrapping adapter that forces every nested call through {@link TypeAdapter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NestedBenchmark {
+
+    @Param({"direct", "indirect"})
+    public String linking;
+
+    private Gson gson;
+    private Level1 value;
+    private String json;
+
+    @Setup
+    public void setup() {
+        GsonBuilder builder = new GsonBuilder().registerTypeAdapterFactory(new ValueTypeAdapterFactory());
+        if (linking.equals("indirect")) {
+            builder.registerTypeAdapterFactory(new WrappingTypeAdapterFactory());
+        }
+        gson = builder.create();
+        value = Payloads.level1(0);
+        json = gson.toJson(value);
+    }
+
+    @Benchmark
+    public Level1 read() {
+        return gson.fromJson(json, Level1.class);
+    }
+
+    @Benchmark
+    public String write() {
+        return gson.toJson(value, Level1.class);
+    }
+
+    /**
+     * Hides the generated adapters behind another adapter, like any override registered with gson.
+     */
+    static class WrappingTypeAdapterFactory implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!type.getRawType().getName().startsWith(Level1.class.getPackage().getName())) {
+                return null;
+            }
+            final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<T>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    delegate.write(out, value);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    return delegate.read(in);
+                }
+            };
+        }
+    }
+}
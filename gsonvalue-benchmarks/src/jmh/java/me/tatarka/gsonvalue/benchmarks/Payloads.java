@@ -0,0 +1,123 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.benchmarks.model.BenchmarkTypeAdapterFactory;
+import me.tatarka.gsonvalue.benchmarks.model.Built;
+import me.tatarka.gsonvalue.benchmarks.model.Flat;
+import me.tatarka.gsonvalue.benchmarks.model.Generic;
+import me.tatarka.gsonvalue.benchmarks.model.KotlinData;
+import me.tatarka.gsonvalue.benchmarks.model.Level1;
+import me.tatarka.gsonvalue.benchmarks.model.Level2;
+import me.tatarka.gsonvalue.benchmarks.model.Level3;
+import me.tatarka.gsonvalue.benchmarks.model.Level4;
+import me.tatarka.gsonvalue.benchmarks.model.Level5;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates the gson instances and payloads the benchmarks share.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * Creates a gson instance that uses the generated factory, {@link ValueTypeAdapterFactory} or
+     * gson's own reflection.
+     */
+    static Gson gson(String adapters) {
+        switch (adapters) {
+            case "generated":
+                return new GsonBuilder().registerTypeAdapterFactory(BenchmarkTypeAdapterFactory.create()).create();
+            case "factory":
+                return new GsonBuilder().registerTypeAdapterFactory(new ValueTypeAdapterFactory()).create();
+            case "reflective":
+                return new Gson();
+            default:
+                throw new IllegalArgumentException("Unknown adapters: " + adapters);
+        }
+    }
+
+    /**
+     * Returns the type of a list of the given model.
+     */
+    static Type listType(String model) {
+        switch (model) {
+            case "flat":
+                return new TypeToken<List<Flat>>() {}.getType();
+            case "nested":
+                return new TypeToken<List<Level1>>() {}.getType();
+            case "generic":
+                return new TypeToken<List<Generic<Flat>>>() {}.getType();
+            case "builder":
+                return new TypeToken<List<Built>>() {}.getType();
+            case "kotlin":
+                return new TypeToken<List<KotlinData>>() {}.getType();
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+
+    /**
+     * Creates a list of the given model that serializes to about the given number of bytes, but
+     * always has at least one element.
+     */
+    static List<Object> list(Gson gson, String model, int bytes) {
+        int elementBytes = gson.toJson(Collections.singletonList(element(model, 0)), listType(model)).length() - 1;
+        int count = Math.max(1, bytes / elementBytes);
+        List<Object> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(element(model, i));
+        }
+        return list;
+    }
+
+    private static Object element(String model, int i) {
+        switch (model) {
+            case "flat":
+                return flat(i);
+            case "nested":
+                return level1(i);
+            case "generic":
+                return new Generic<>(flat(i));
+            case "builder":
+                return new Built.Builder()
+                        .id(i)
+                        .name("name" + i)
+                        .score(i * 0.5)
+                        .active(i % 2 == 0)
+                        .build();
+            case "kotlin":
+                return new KotlinData(i, "name" + i, i * 0.5, i % 2 == 0);
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+
+    private static Flat flat(int i) {
+        return new Flat(i, 1500000000000L + i, i * 0.5, i % 2 == 0, "name" + i, "user" + i + "@example.com", i * 3, 1.0 / (i + 1));
+    }
+
+    static Level1 level1(int id) {
+        return new Level1(id, "level1", level2(id * 2), level2(id * 2 + 1));
+    }
+
+    private static Level2 level2(int id) {
+        return new Level2(id, "level2", level3(id * 2), level3(id * 2 + 1));
+    }
+
+    private static Level3 level3(int id) {
+        return new Level3(id, "level3", level4(id * 2), level4(id * 2 + 1));
+    }
+
+    private static Level4 level4(int id) {
+        return new Level4(id, "level4", new Level5(id * 2, "level5"), new Level5(id * 2 + 1, "level5"));
+    }
+}
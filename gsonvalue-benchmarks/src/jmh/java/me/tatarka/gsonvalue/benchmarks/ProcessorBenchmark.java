@@ -0,0 +1,101 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import me.tatarka.gsonvalue.GsonValueProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaFileObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures compiling models with and without the annotation processor, so the difference is the
+ * time spent processing. Each model has a private field, a bean getter and a builder method for
+ * every property.
+ * <pre><code>
+ * ./gradlew :gsonvalue-benchmarks:jmh -Pinclude=ProcessorBenchmark
+ * </code></pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProcessorBenchmark {
+    private static final String PACKAGE = "processor";
+
+    @Param({"10", "100", "300"})
+    public int properties;
+
+    @Param({"1", "100"})
+    public int models;
+
+    private List<JavaFileObject> sources;
+
+    @Setup
+    public void setup() {
+        sources = new ArrayList<>(models);
+        for (int i = 0; i < models; i++) {
+            sources.add(JavaFileObjects.forSourceString(PACKAGE + ".Model" + i, model(i, properties)));
+        }
+    }
+
+    @Benchmark
+    public Compilation javac() {
+        return check(Compiler.javac().compile(sources));
+    }
+
+    @Benchmark
+    public Compilation processor() {
+        return check(Compiler.javac().withProcessors(new GsonValueProcessor()).compile(sources));
+    }
+
+    private static Compilation check(Compilation compilation) {
+        if (compilation.status() != Compilation.Status.SUCCESS) {
+            throw new IllegalStateException(compilation.diagnostics().toString());
+        }
+        return compilation;
+    }
+
+    /**
+     * Generates a model with a builder, since a constructor can't take more than 255 params. Much
+     * more than 600 properties and the generated read method gets too large for the jvm.
+     */
+    static String model(int index, int properties) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(PACKAGE).append(";\n\n")
+                .append("import me.tatarka.gsonvalue.annotations.GsonBuilder;\n\n")
+                .append("public class Model").append(index).append(" {\n");
+        for (int i = 0; i < properties; i++) {
+            source.append("    private final int property").append(i).append(";\n");
+        }
+        source.append("\n    private Model").append(index).append("(Builder builder) {\n");
+        for (int i = 0; i < properties; i++) {
+            source.append("        this.property").append(i).append(" = builder.property").append(i).append(";\n");
+        }
+        source.append("    }\n");
+        for (int i = 0; i < properties; i++) {
+            source.append("\n    public int getProperty").append(i).append("() {\n")
+                    .append("        return property").append(i).append(";\n")
+                    .append("    }\n");
+        }
+        source.append("\n    public static class Builder {\n");
+        for (int i = 0; i < properties; i++) {
+            source.append("        private int property").append(i).append(";\n");
+        }
+        source.append("\n        @GsonBuilder\n        public Builder() {\n        }\n");
+        for (int i = 0; i < properties; i++) {
+            source.append("\n        public Builder property").append(i).append("(int property").append(i).append(") {\n")
+                    .append("            this.property").append(i).append(" = property").append(i).append(";\n")
+                    .append("            return this;\n")
+                    .append("        }\n");
+        }
+        source.append("\n        public Model").append(index).append(" build() {\n")
+                .append("            return new Model").append(index).append("(this);\n")
+                .append("        }\n    }\n");
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,54 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing a list of each kind of model, with the generated factory,
+ * {@code ValueTypeAdapterFactory} or gson's reflective adapters. Run with {@code -prof gc} to see
+ * the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadWriteBenchmark {
+
+    @Param({"flat", "nested", "generic", "builder", "kotlin"})
+    public String model;
+
+    @Param({"generated", "factory", "reflective"})
+    public String adapters;
+
+    /**
+     * The approximate size of the json payload.
+     */
+    @Param({"100", "10000", "1000000", "10000000"})
+    public int payloadBytes;
+
+    private Gson gson;
+    private Type type;
+    private List<Object> value;
+    private String json;
+
+    @Setup
+    public void setup() {
+        gson = Payloads.gson(adapters);
+        type = Payloads.listType(model);
+        value = Payloads.list(gson, model, payloadBytes);
+        json = gson.toJson(value, type);
+    }
+
+    @Benchmark
+    public Object read() {
+        return gson.fromJson(json, type);
+    }
+
+    @Benchmark
+    public String write() {
+        return gson.toJson(value, type);
+    }
+}
@@ -0,0 +1,218 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import me.tatarka.gsonvalue.GsonValueProcessor;
+import me.tatarka.gsonvalue.GsonValueTypeAdapterFactoryProcessor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time to the first read and write of a large model in a fresh JVM, which includes
+ * class loading and creating the adapters of every reachable class.
+ * <p>
+ * For each model count it generates that many {@code @GsonConstructor} classes, each referencing
+ * the next two so that the first one reaches all of them, and compiles them with the annotation
+ * processor. It then starts a new JVM for each run, which reads or writes the first class with the
+ * generated {@code @GsonValueTypeAdapterFactory} or with {@code ValueTypeAdapterFactory}.
+ * <pre><code>
+ * ./gradlew :gsonvalue-benchmarks:startup -Pargs="--runs 10 --lazy 10 100 1000 5000"
+ * </code></pre>
+ * Pass {@code --lazy} to compile the models with {@code gsonvalue.lazyAdapters} enabled.
+ */
+public final class StartupBenchmark {
+    private static final String PACKAGE = "startup";
+    private static final String[] FACTORIES = {"generated", "factory"};
+    private static final String[] OPERATIONS = {"read", "write"};
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        boolean lazy = false;
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--lazy":
+                    lazy = true;
+                    break;
+                default:
+                    counts.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (counts.isEmpty()) {
+            counts.addAll(Arrays.asList(10, 100, 1000, 5000));
+        }
+
+        System.out.printf("%8s %10s %6s %14s %14s%n", "models", "factory", "op", "first (ms)", "uptime (ms)");
+        for (int count : counts) {
+            File dir = compile(count, lazy);
+            for (String factory : FACTORIES) {
+                for (String operation : OPERATIONS) {
+                    long[] first = new long[runs];
+                    long[] uptime = new long[runs];
+                    for (int run = 0; run < runs; run++) {
+                        long[] result = probe(dir, factory, operation);
+                        first[run] = result[0];
+                        uptime[run] = result[1];
+                    }
+                    System.out.printf("%8d %10s %6s %14.1f %14d%n", count, factory, operation, median(first) / 1e6, median(uptime));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates and compiles the given number of models, reusing a previous compilation.
+     */
+    private static File compile(int count, boolean lazy) throws IOException {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "gsonvalue-startup-" + count + (lazy ? "-lazy" : ""));
+        File classes = new File(dir, "classes");
+        if (new File(classes, PACKAGE + "/Probe.class").exists()) {
+            return classes;
+        }
+        File sources = new File(dir, "sources/" + PACKAGE);
+        if (!sources.mkdirs() && !sources.isDirectory() || !classes.mkdirs() && !classes.isDirectory()) {
+            throw new IOException("Could not create " + dir);
+        }
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(write(sources, "Model" + i, model(i, count)));
+        }
+        files.add(write(sources, "StartupTypeAdapterFactory", factory()));
+        files.add(write(sources, "Probe", probe(count)));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        List<String> options = new ArrayList<>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", classes.getPath(),
+                "-s", classes.getPath()));
+        if (lazy) {
+            options.add("-Agsonvalue.lazyAdapters=true");
+        }
+        Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, units);
+        task.setProcessors(Arrays.asList(new GsonValueProcessor(), new GsonValueTypeAdapterFactoryProcessor()));
+        if (!task.call()) {
+            throw new IOException("Could not compile models in " + dir);
+        }
+        fileManager.close();
+        return classes;
+    }
+
+    private static String model(int i, int count) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(PACKAGE).append(";\n\n")
+                .append("import me.tatarka.gsonvalue.annotations.GsonConstructor;\n\n")
+                .append("public class Model").append(i).append(" {\n")
+                .append("    public final int id;\n")
+                .append("    public final String name;\n");
+        List<Integer> children = new ArrayList<>();
+        for (int child = 2 * i + 1; child <= 2 * i + 2 && child < count; child++) {
+            children.add(child);
+            source.append("    public final Model").append(child).append(" child").append(child).append(";\n");
+        }
+        source.append("\n    @GsonConstructor\n    public Model").append(i).append("(int id, String name");
+        for (int child : children) {
+            source.append(", Model").append(child).append(" child").append(child);
+        }
+        source.append(") {\n        this.id = id;\n        this.name = name;\n");
+        for (int child : children) {
+            source.append("        this.child").append(child).append(" = child").append(child).append(";\n");
+        }
+        return source.append("    }\n}\n").toString();
+    }
+
+    private static String factory() {
+        return "package " + PACKAGE + ";\n\n" +
+                "import com.google.gson.TypeAdapterFactory;\n" +
+                "import me.tatarka.gsonvalue.annotations.GsonValueTypeAdapterFactory;\n\n" +
+                "@GsonValueTypeAdapterFactory\n" +
+                "public abstract class StartupTypeAdapterFactory implements TypeAdapterFactory {\n" +
+                "}\n";
+    }
+
+    /**
+     * The probe runs in the new JVM, and prints the nanoseconds from it's main method to the first
+     * result and the JVM's uptime in milliseconds.
+     */
+    private static String probe(int count) {
+        // The first model has up to two children, left out of the written json.
+        String children = count > 2 ? ", null, null" : count > 1 ? ", null" : "";
+        return "package " + PACKAGE + ";\n\n" +
+                "import com.google.gson.Gson;\n" +
+                "import com.google.gson.GsonBuilder;\n" +
+                "import com.google.gson.TypeAdapterFactory;\n" +
+                "import java.lang.management.ManagementFactory;\n" +
+                "import me.tatarka.gsonvalue.ValueTypeAdapterFactory;\n\n" +
+                "public class Probe {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        long start = System.nanoTime();\n" +
+                "        TypeAdapterFactory factory = args[0].equals(\"generated\")\n" +
+                "                ? new GsonValue_StartupTypeAdapterFactory()\n" +
+                "                : new ValueTypeAdapterFactory();\n" +
+                "        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();\n" +
+                "        Object result = args[1].equals(\"read\")\n" +
+                "                ? gson.fromJson(\"{\\\"id\\\":1,\\\"name\\\":\\\"root\\\"}\", Model0.class)\n" +
+                "                : gson.toJson(new Model0(1, \"root\"" + children + "));\n" +
+                "        long first = System.nanoTime() - start;\n" +
+                "        if (result == null) {\n" +
+                "            throw new AssertionError();\n" +
+                "        }\n" +
+                "        System.out.println(first + \" \" + ManagementFactory.getRuntimeMXBean().getUptime());\n" +
+                "    }\n" +
+                "}\n";
+    }
+
+    private static File write(File dir, String name, String source) throws IOException {
+        File file = new File(dir, name + ".java");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static long[] probe(File classes, String factory, String operation) throws IOException, InterruptedException {
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        String classpath = classes.getPath() + File.pathSeparator + System.getProperty("java.class.path");
+        Process process = new ProcessBuilder(java, "-cp", classpath, PACKAGE + ".Probe", factory, operation)
+                .redirectErrorStream(true)
+                .start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+        String line;
+        String last = null;
+        while ((line = reader.readLine()) != null) {
+            last = line;
+        }
+        if (process.waitFor() != 0 || last == null) {
+            throw new IOException("Probe failed: " + last);
+        }
+        String[] parts = last.split(" ");
+        return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
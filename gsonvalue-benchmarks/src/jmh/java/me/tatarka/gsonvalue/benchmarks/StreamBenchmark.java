@@ -0,0 +1,162 @@
+package me.tatarka.gsonvalue.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import me.tatarka.gsonvalue.stream.Utf8JsonReader;
+import me.tatarka.gsonvalue.stream.Utf8JsonWriter;
+import me.tatarka.gsonvalue.stream.ValueJsonReader;
+import me.tatarka.gsonvalue.stream.ValueJsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing a json array as UTF-8 bytes with generated adapters, through gson's
+ * {@link JsonReader} and {@link JsonWriter}, through {@link ValueJsonReader} and
+ * {@link ValueJsonWriter}, and directly with {@link Utf8JsonReader} and {@link Utf8JsonWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final WritableByteChannel NULL_CHANNEL = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer src) {
+            int count = src.remaining();
+            src.position(src.limit());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Param({"flat", "nested", "builder"})
+    public String model;
+
+    /**
+     * The approximate size of the json payload.
+     */
+    @Param({"10000", "1000000"})
+    public int payloadBytes;
+
+    private Gson gson;
+    private TypeAdapter<Object> adapter;
+    private List<Object> value;
+    private byte[] json;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setup() {
+        gson = Payloads.gson("generated");
+        Type listType = Payloads.listType(model);
+        Type elementType = ((ParameterizedType) listType).getActualTypeArguments()[0];
+        adapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(elementType));
+        value = Payloads.list(gson, model, payloadBytes);
+        json = gson.toJson(value, listType).getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public List<Object> readJsonReader() throws IOException {
+        JsonReader in = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), UTF_8));
+        List<Object> result = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            result.add(adapter.read(in));
+        }
+        in.endArray();
+        return result;
+    }
+
+    @Benchmark
+    public List<Object> readValueJsonReader() throws IOException {
+        return read(new ValueJsonReader(new InputStreamReader(new ByteArrayInputStream(json), UTF_8)));
+    }
+
+    @Benchmark
+    public List<Object> readUtf8JsonReader() throws IOException {
+        return read(new Utf8JsonReader(json));
+    }
+
+    @Benchmark
+    public byte[] writeJsonWriter() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(bytes, UTF_8);
+        write(new JsonWriter(writer));
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeValueJsonWriter() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(bytes, UTF_8);
+        write(new ValueJsonWriter(writer));
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeUtf8JsonWriter() throws IOException {
+        Utf8JsonWriter out = new Utf8JsonWriter();
+        write(out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public void writeStringToChannel() throws IOException {
+        StringWriter writer = new StringWriter();
+        write(new ValueJsonWriter(writer));
+        NULL_CHANNEL.write(ByteBuffer.wrap(writer.toString().getBytes(UTF_8)));
+    }
+
+    @Benchmark
+    public void writeUtf8JsonWriterToChannel() throws IOException {
+        Utf8JsonWriter out = new Utf8JsonWriter(NULL_CHANNEL);
+        write(out);
+        out.flush();
+    }
+
+    private void write(JsonWriter out) throws IOException {
+        out.beginArray();
+        for (Object element : value) {
+            adapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    private List<Object> read(ValueJsonReader in) throws IOException {
+        List<Object> result = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            result.add(in.read(adapter));
+        }
+        in.endArray();
+        return result;
+    }
+}
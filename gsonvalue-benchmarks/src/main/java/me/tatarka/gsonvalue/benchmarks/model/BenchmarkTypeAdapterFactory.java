@@ -0,0 +1,12 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import com.google.gson.TypeAdapterFactory;
+import me.tatarka.gsonvalue.annotations.GsonValueTypeAdapterFactory;
+
+@GsonValueTypeAdapterFactory
+public abstract class BenchmarkTypeAdapterFactory implements TypeAdapterFactory {
+
+    public static TypeAdapterFactory create() {
+        return new GsonValue_BenchmarkTypeAdapterFactory();
+    }
+}
@@ -0,0 +1,68 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonBuilder;
+
+public class Built {
+    private final int id;
+    private final String name;
+    private final double score;
+    private final boolean active;
+
+    private Built(Builder builder) {
+        this.id = builder.id;
+        this.name = builder.name;
+        this.score = builder.score;
+        this.active = builder.active;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public static class Builder {
+        private int id;
+        private String name;
+        private double score;
+        private boolean active;
+
+        @GsonBuilder
+        public Builder() {
+        }
+
+        public Builder id(int id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder score(double score) {
+            this.score = score;
+            return this;
+        }
+
+        public Builder active(boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        public Built build() {
+            return new Built(this);
+        }
+    }
+}
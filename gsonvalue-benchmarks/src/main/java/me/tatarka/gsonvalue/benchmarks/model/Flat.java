@@ -0,0 +1,26 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Flat {
+    public final int id;
+    public final long timestamp;
+    public final double score;
+    public final boolean active;
+    public final String name;
+    public final String email;
+    public final int count;
+    public final double ratio;
+
+    @GsonConstructor
+    public Flat(int id, long timestamp, double score, boolean active, String name, String email, int count, double ratio) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.score = score;
+        this.active = active;
+        this.name = name;
+        this.email = email;
+        this.count = count;
+        this.ratio = ratio;
+    }
+}
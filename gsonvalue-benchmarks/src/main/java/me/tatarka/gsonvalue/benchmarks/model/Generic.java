@@ -0,0 +1,16 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Generic<T> {
+    private final T value;
+
+    @GsonConstructor
+    public Generic(T value) {
+        this.value = value;
+    }
+
+    public T value() {
+        return value;
+    }
+}
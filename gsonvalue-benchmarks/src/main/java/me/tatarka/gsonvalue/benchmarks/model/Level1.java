@@ -0,0 +1,18 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Level1 {
+    public final int id;
+    public final String name;
+    public final Level2 left;
+    public final Level2 right;
+
+    @GsonConstructor
+    public Level1(int id, String name, Level2 left, Level2 right) {
+        this.id = id;
+        this.name = name;
+        this.left = left;
+        this.right = right;
+    }
+}
@@ -0,0 +1,18 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Level2 {
+    public final int id;
+    public final String name;
+    public final Level3 left;
+    public final Level3 right;
+
+    @GsonConstructor
+    public Level2(int id, String name, Level3 left, Level3 right) {
+        this.id = id;
+        this.name = name;
+        this.left = left;
+        this.right = right;
+    }
+}
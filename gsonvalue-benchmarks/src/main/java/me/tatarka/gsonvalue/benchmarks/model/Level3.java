@@ -0,0 +1,18 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Level3 {
+    public final int id;
+    public final String name;
+    public final Level4 left;
+    public final Level4 right;
+
+    @GsonConstructor
+    public Level3(int id, String name, Level4 left, Level4 right) {
+        this.id = id;
+        this.name = name;
+        this.left = left;
+        this.right = right;
+    }
+}
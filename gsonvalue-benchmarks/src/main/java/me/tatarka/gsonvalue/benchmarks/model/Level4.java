@@ -0,0 +1,18 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Level4 {
+    public final int id;
+    public final String name;
+    public final Level5 left;
+    public final Level5 right;
+
+    @GsonConstructor
+    public Level4(int id, String name, Level5 left, Level5 right) {
+        this.id = id;
+        this.name = name;
+        this.left = left;
+        this.right = right;
+    }
+}
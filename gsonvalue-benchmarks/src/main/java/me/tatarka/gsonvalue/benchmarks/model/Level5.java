@@ -0,0 +1,14 @@
+package me.tatarka.gsonvalue.benchmarks.model;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class Level5 {
+    public final int id;
+    public final String name;
+
+    @GsonConstructor
+    public Level5(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -0,0 +1,5 @@
+package me.tatarka.gsonvalue.benchmarks.model
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor
+
+@GsonConstructor data class KotlinData(val id: Int, val name: String, val score: Double, val active: Boolean)
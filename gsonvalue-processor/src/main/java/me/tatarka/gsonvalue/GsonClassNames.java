@@ -12,4 +12,10 @@ final class GsonClassNames {
     static final ClassName TYPE_TOKEN = ClassName.get("com.google.gson.reflect", "TypeToken");
     static final ClassName JSON_ADAPTER = ClassName.get("com.google.gson.annotations", "JsonAdapter");
     static final ClassName JSON_ADAPTER_METHOD = ClassName.get("me.tatarka.gsonvalue.annotations", "JsonAdapter");
+    static final ClassName BUILT_IN_ADAPTERS = ClassName.get("me.tatarka.gsonvalue.internal", "BuiltInAdapters");
+    static final ClassName JSON_NAME = ClassName.get("me.tatarka.gsonvalue.stream", "JsonName");
+    static final ClassName NAME_TABLE = ClassName.get("me.tatarka.gsonvalue.stream", "NameTable");
+    static final ClassName VALUE_JSON_READER = ClassName.get("me.tatarka.gsonvalue.stream", "ValueJsonReader");
+    static final ClassName VALUE_TYPE_ADAPTER = ClassName.get("me.tatarka.gsonvalue.stream", "ValueTypeAdapter");
+    static final ClassName VALUE_TYPE_ADAPTER_INDEX = ClassName.get("me.tatarka.gsonvalue", "ValueTypeAdapterIndex");
 }
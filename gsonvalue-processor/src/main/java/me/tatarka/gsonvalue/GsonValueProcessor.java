@@ -3,14 +3,17 @@ package me.tatarka.gsonvalue;
 import com.squareup.javapoet.*;
 import me.tatarka.gsonvalue.annotations.GsonBuilder;
 import me.tatarka.gsonvalue.annotations.GsonConstructor;
+import me.tatarka.gsonvalue.internal.NameHash;
 
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.*;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
 import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.SimpleTypeVisitor6;
 import javax.lang.model.util.Types;
@@ -26,11 +29,18 @@ import java.util.*;
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
 public class GsonValueProcessor extends AbstractProcessor {
 
+    /**
+     * Resolve property adapters on first use instead of when the adapter is created.
+     */
+    static final String OPTION_LAZY_ADAPTERS = "gsonvalue.lazyAdapters";
+
     private Messager messager;
     private Filer filer;
     private Types typeUtils;
-    private List<ClassName> seen;
+    private Set<ClassName> seen;
+    private Map<TypeElement, Boolean> hasGeneratedAdapter;
     private SearchUtils searchUtils;
+    private boolean lazyAdapters;
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnv) {
@@ -38,12 +48,16 @@ public class GsonValueProcessor extends AbstractProcessor {
         messager = processingEnv.getMessager();
         filer = processingEnv.getFiler();
         typeUtils = processingEnv.getTypeUtils();
-        seen = new ArrayList<>();
-        searchUtils = new SearchUtils(messager, typeUtils);
+        seen = new HashSet<>();
+        hasGeneratedAdapter = new HashMap<>();
+        searchUtils = SearchUtils.get(processingEnv);
+        lazyAdapters = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_LAZY_ADAPTERS));
     }
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        searchUtils.startRound(roundEnv);
+        hasGeneratedAdapter.clear();
         for (TypeElement annotation : annotations) {
             Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(annotation);
             for (Element element : elements) {
@@ -74,11 +88,9 @@ public class GsonValueProcessor extends AbstractProcessor {
         TypeElement classElement = search.findClass();
 
         ClassName className = ClassName.get(classElement);
-        if (seen.contains(className)) {
+        if (!seen.add(className)) {
             // Don't process the same class more than once.
             return;
-        } else {
-            seen.add(className);
         }
         ClassName creatorName = ClassName.get((TypeElement) executableElement.getEnclosingElement());
         ClassName typeAdapterClassName = ClassName.get(className.packageName(), Prefix.PREFIX + StringUtils.join("_", className.simpleNames()));
@@ -139,16 +151,74 @@ public class GsonValueProcessor extends AbstractProcessor {
 
         TypeSpec.Builder spec = TypeSpec.classBuilder(typeAdapterClassName.simpleName())
                 .addTypeVariables(typeVariables)
-                .addModifiers(Modifier.PUBLIC)
-                .superclass(ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, classType));
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .superclass(ParameterizedTypeName.get(GsonClassNames.VALUE_TYPE_ADAPTER, classType));
+
+        // Serialized names, quoted and escaped ahead of time.
+        for (Name name : names.fields()) {
+            addJsonNameField(spec, name);
+        }
+        for (Name name : names.getters()) {
+            addJsonNameField(spec, name);
+        }
+
+        // Type tokens of complex types, shared by every property of the same type.
+        Map<TypeName, String> typeTokens = new LinkedHashMap<>();
+        for (Name<?> name : names.names()) {
+            TypeMirror type = name.getType();
+            TypeName typeName = TypeName.get(type);
+            if (usesTypeToken(name) && isComplexType(type) && !containsTypeVariable(type) && !typeTokens.containsKey(typeName)) {
+                String typeTokenName = Prefix.TYPE_TOKEN_PREFIX + name.getName();
+                typeTokens.put(typeName, typeTokenName);
+                spec.addField(FieldSpec.builder(ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, typeName), typeTokenName)
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer(typeToken(type, typeVariables))
+                        .build());
+            }
+        }
 
         // TypeAdapters
+        boolean hasLazyAdapters = false;
+        boolean lazyAdaptersNeedTypeArguments = false;
+        boolean adaptersNeedTypeArguments = false;
         for (Name name : names.names()) {
             TypeName typeName = TypeName.get(name.getType());
             TypeName typeAdapterType = ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, typeName.box());
+            if (isLazy(name)) {
+                hasLazyAdapters = true;
+                lazyAdaptersNeedTypeArguments |= needsTypeArguments(name);
+                spec.addField(FieldSpec.builder(typeAdapterType, Prefix.TYPE_ADAPTER_PREFIX + name.getName())
+                        .addModifiers(Modifier.PRIVATE)
+                        .build());
+                continue;
+            }
+            adaptersNeedTypeArguments |= needsTypeArguments(name);
             spec.addField(FieldSpec.builder(typeAdapterType, Prefix.TYPE_ADAPTER_PREFIX + name.getName())
                     .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
                     .build());
+            if (hasBuiltInPath(name)) {
+                spec.addField(FieldSpec.builder(TypeName.BOOLEAN, Prefix.BUILT_IN_PREFIX + name.getName())
+                        .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                        .build());
+            }
+            ClassName directAdapter = directAdapter(name);
+            if (directAdapter != null) {
+                spec.addField(FieldSpec.builder(directAdapter, Prefix.DIRECT_PREFIX + name.getName())
+                        .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                        .build());
+            }
+        }
+
+        // Kept to resolve lazy adapters with.
+        if (hasLazyAdapters) {
+            spec.addField(FieldSpec.builder(GsonClassNames.GSON, "gson")
+                    .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                    .build());
+        }
+        if (lazyAdaptersNeedTypeArguments) {
+            spec.addField(FieldSpec.builder(Type[].class, "typeArguments")
+                    .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                    .build());
         }
 
         // Test_TypeAdapter(Gson gson, TypeToken<Test> typeToken)
@@ -157,30 +227,44 @@ public class GsonValueProcessor extends AbstractProcessor {
                     .addModifiers(Modifier.PUBLIC)
                     .addParameter(GsonClassNames.GSON, "gson")
                     .addParameter(ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, classType), "typeToken");
+            if (hasLazyAdapters) {
+                constructor.addStatement("this.gson = gson");
+            }
+            if (lazyAdaptersNeedTypeArguments) {
+                constructor.addStatement("this.typeArguments = (($T) typeToken.getType()).getActualTypeArguments()", ParameterizedType.class);
+            } else if (adaptersNeedTypeArguments) {
+                constructor.addStatement("$T[] typeArguments = (($T) typeToken.getType()).getActualTypeArguments()", Type.class, ParameterizedType.class);
+            }
             for (Name<?> name : names.names()) {
+                if (isLazy(name)) {
+                    continue;
+                }
                 String typeAdapterName = Prefix.TYPE_ADAPTER_PREFIX + name.getName();
-                DeclaredType typeAdapterClass = findTypeAdapterClass(name.annotations);
                 CodeBlock.Builder block = CodeBlock.builder()
-                        .add("this.$L = ", typeAdapterName);
-                if (typeAdapterClass != null) {
-                    if (isInstance(typeAdapterClass, GsonClassNames.TYPE_ADAPTER.toString())) {
-                        block.add("new $T(", typeAdapterClass);
-                    } else if (isInstance(typeAdapterClass, GsonClassNames.TYPE_ADAPTER_FACTORY.toString())) {
-                        block.add("new $T().create(gson, ", typeAdapterClass);
-                        appendFieldTypeToken(block, name, typeVariables, /*allowClassType=*/false);
-                    } else {
-                        messager.printMessage(Diagnostic.Kind.ERROR, "@JsonAdapter value must by TypeAdapter or TypeAdapterFactory reference.", name.element);
-                    }
-                } else {
-                    block.add("gson.getAdapter(");
-                    appendFieldTypeToken(block, name, typeVariables, /*allowClassType=*/true);
+                        .add("this.$L = ", typeAdapterName)
+                        .add(createAdapter(name, typeVariables, typeTokens))
+                        .add(";\n");
+                if (hasBuiltInPath(name)) {
+                    block.add("this.$L = $T.isBuiltIn($L, $T.class);\n", Prefix.BUILT_IN_PREFIX + name.getName(),
+                            GsonClassNames.BUILT_IN_ADAPTERS, typeAdapterName, TypeName.get(name.getType()));
+                }
+                ClassName directAdapter = directAdapter(name);
+                if (directAdapter != null) {
+                    block.add("this.$L = $L instanceof $T ? ($T) $L : null;\n", Prefix.DIRECT_PREFIX + name.getName(),
+                            typeAdapterName, directAdapter, directAdapter, typeAdapterName);
                 }
-                block.add(");\n");
                 constructor.addCode(block.build());
             }
             spec.addMethod(constructor.build());
         }
 
+        // private TypeAdapter<Arg> adapter_arg()
+        for (Name<?> name : names.names()) {
+            if (isLazy(name)) {
+                spec.addMethod(lazyAdapterMethod(name, typeVariables, typeTokens));
+            }
+        }
+
         // @Override public void write(JsonWriter out, T value) throws IOException
         {
             CodeBlock.Builder code = CodeBlock.builder();
@@ -191,12 +275,12 @@ public class GsonValueProcessor extends AbstractProcessor {
 
             code.addStatement("out.beginObject()");
             for (Name name : names.fields()) {
-                code.addStatement("out.name($S)", name.getSerializeName())
-                        .addStatement("$L.write(out, value.$L)", Prefix.TYPE_ADAPTER_PREFIX + name.getName(), name.getCallableName());
+                code.addStatement("$L.writeTo(out)", Prefix.NAME_PREFIX + name.getName());
+                addWriteValue(code, name, "value." + name.getCallableName());
             }
             for (Name name : names.getters()) {
-                code.addStatement("out.name($S)", name.getSerializeName())
-                        .addStatement("$L.write(out, value.$L())", Prefix.TYPE_ADAPTER_PREFIX + name.getName(), name.getCallableName());
+                code.addStatement("$L.writeTo(out)", Prefix.NAME_PREFIX + name.getName());
+                addWriteValue(code, name, "value." + name.getCallableName() + "()");
             }
             code.addStatement("out.endObject()");
 
@@ -211,74 +295,48 @@ public class GsonValueProcessor extends AbstractProcessor {
         }
 
         // @Override public T read(JsonReader in) throws IOException
+        // @Override public T read(ValueJsonReader in) throws IOException
         {
-            CodeBlock.Builder code = CodeBlock.builder();
-            code.beginControlFlow("if (in.peek() == $T.NULL)", GsonClassNames.JSON_TOKEN)
-                    .addStatement("in.nextNull()")
-                    .addStatement("return null")
-                    .endControlFlow();
-
-            Iterable<Name> params = names.params();
-            boolean isEmpty = true;
-            for (Name name : params) {
-                isEmpty = false;
-                code.addStatement("$T $L = $L", name.getType(), Prefix.ARG_PREFIX + name.getName(), getDefaultValue(name.getType()));
-            }
-            if (isEmpty) {
-                code.addStatement("in.skipValue()");
-            } else {
-                code.addStatement("in.beginObject()")
-                        .beginControlFlow("while (in.hasNext())")
-                        .beginControlFlow("switch (in.nextName())");
-                for (Name name : params) {
-                    code.add("case $S:\n", name.getSerializeName()).indent();
-                    code.addStatement("$L = $L.read(in)", Prefix.ARG_PREFIX + name.getName(), Prefix.TYPE_ADAPTER_PREFIX + name.getName())
-                            .addStatement("break").unindent();
-                }
-                code.add("default:\n").indent()
-                        .addStatement("in.skipValue()")
-                        .unindent();
-
-                code.endControlFlow()
-                        .endControlFlow()
-                        .addStatement("in.endObject()");
+            List<Name> params = new ArrayList<>();
+            for (Name name : names.params()) {
+                params.add(name);
             }
 
+            CodeBlock.Builder returnValue = CodeBlock.builder();
             if (isBuilder) {
                 String args = StringUtils.join(", ", names.constructorParams(), TO_ARGS);
                 if (isConstructor) {
-                    code.add("return new $T($L)", builderClass, args);
+                    returnValue.add("return new $T($L)", builderClass, args);
                 } else {
-                    code.add("return $T.$L($L)", creatorName, element.getSimpleName(), args);
+                    returnValue.add("return $T.$L($L)", creatorName, element.getSimpleName(), args);
                 }
-                code.add("\n").indent();
+                returnValue.add("\n").indent();
                 for (Name name : names.builderParams()) {
-                    code.add(".$L($L)\n", name.getCallableName(), Prefix.ARG_PREFIX + name.getName());
+                    returnValue.add(".$L($L)\n", name.getCallableName(), Prefix.ARG_PREFIX + name.getName());
                 }
-                code.add(".$L();\n", buildMethod.getSimpleName()).unindent();
+                returnValue.add(".$L();\n", buildMethod.getSimpleName()).unindent();
             } else {
                 String args = StringUtils.join(", ", params, TO_ARGS);
                 if (isConstructor) {
-                    code.addStatement("return new $T($L)", classType, args);
+                    returnValue.addStatement("return new $T($L)", classType, args);
                 } else {
-                    code.addStatement("return $T.$L($L)", creatorName, executableElement.getSimpleName(), args);
+                    returnValue.addStatement("return $T.$L($L)", creatorName, executableElement.getSimpleName(), args);
                 }
             }
 
-            spec.addMethod(MethodSpec.methodBuilder("read")
-                    .addAnnotation(Override.class)
-                    .addModifiers(Modifier.PUBLIC)
-                    .returns(classType)
-                    .addParameter(GsonClassNames.JSON_READER, "in")
-                    .addException(IOException.class)
-                    .addCode(code.build())
-                    .build());
+            if (!params.isEmpty()) {
+                addNameTableField(spec, params);
+            }
+            spec.addMethod(readMethod(classType, params, returnValue.build(), false));
+            spec.addMethod(readMethod(classType, params, returnValue.build(), true));
         }
 
         Writer writer = null;
         boolean threw = true;
         try {
-            JavaFileObject jfo = filer.createSourceFile(typeAdapterClassName.toString());
+            // The annotated element is the only originating element, so the processor can be
+            // incremental (isolating) in gradle.
+            JavaFileObject jfo = filer.createSourceFile(typeAdapterClassName.toString(), element);
             writer = jfo.openWriter();
             JavaFile javaFile = JavaFile.builder(className.packageName(), spec.build())
                     .skipJavaLangImports(true)
@@ -298,6 +356,264 @@ public class GsonValueProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Adds a table of the serialized names of the given params, with a perfect hash computed ahead
+     * of time, so that {@code ValueJsonReader} can match them without creating strings.
+     */
+    private static void addNameTableField(TypeSpec.Builder spec, List<Name> params) {
+        String[] serializeNames = new String[params.size()];
+        for (int i = 0; i < serializeNames.length; i++) {
+            serializeNames[i] = params.get(i).getSerializeName();
+        }
+        NameHash hash = NameHash.compute(serializeNames);
+        CodeBlock.Builder initializer = CodeBlock.builder()
+                .add("new $T($L, new int[] {", GsonClassNames.NAME_TABLE, String.format("0x%08x", hash.seed));
+        for (int i = 0; i < hash.displacements.length; i++) {
+            initializer.add(i == 0 ? "$L" : ", $L", hash.displacements[i]);
+        }
+        initializer.add("}");
+        for (String serializeName : serializeNames) {
+            initializer.add(", $S", serializeName);
+        }
+        initializer.add(")");
+        spec.addField(FieldSpec.builder(GsonClassNames.NAME_TABLE, Prefix.NAME_TABLE)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(initializer.build())
+                .build());
+    }
+
+    /**
+     * Creates the read method for a {@code JsonReader}, or for a {@code ValueJsonReader} which
+     * selects names from the name table instead of switching on them.
+     */
+    private MethodSpec readMethod(TypeName classType, List<Name> params, CodeBlock returnValue, boolean valueReader) {
+        CodeBlock.Builder code = CodeBlock.builder();
+        code.beginControlFlow("if (in.peek() == $T.NULL)", GsonClassNames.JSON_TOKEN)
+                .addStatement("in.nextNull()")
+                .addStatement("return null")
+                .endControlFlow();
+
+        for (Name name : params) {
+            code.addStatement("$T $L = $L", name.getType(), Prefix.ARG_PREFIX + name.getName(), getDefaultValue(name.getType()));
+        }
+        if (params.isEmpty()) {
+            code.addStatement("in.skipValue()");
+        } else {
+            code.addStatement("in.beginObject()")
+                    .beginControlFlow("while (in.hasNext())");
+            if (valueReader) {
+                code.beginControlFlow("switch (in.selectName($L))", Prefix.NAME_TABLE);
+            } else {
+                code.beginControlFlow("switch (in.nextName())");
+            }
+            for (int i = 0; i < params.size(); i++) {
+                Name name = params.get(i);
+                if (valueReader) {
+                    code.add("case $L: // $L\n", i, StringUtils.jsonQuote(name.getSerializeName())).indent();
+                } else {
+                    code.add("case $S:\n", name.getSerializeName()).indent();
+                }
+                String arg = Prefix.ARG_PREFIX + name.getName();
+                String typeAdapterName = adapter(name);
+                String readAdapter = valueReader ? "in.read(" + typeAdapterName + ")" : typeAdapterName + ".read(in)";
+                String builtInReadMethod = builtInReadMethod(name);
+                if (builtInReadMethod != null) {
+                    // Read primitives and strings directly instead of going through the adapter.
+                    code.addStatement("$L = $L ? $T.$L(in) : $L", arg, Prefix.BUILT_IN_PREFIX + name.getName(),
+                            GsonClassNames.BUILT_IN_ADAPTERS, builtInReadMethod, readAdapter);
+                } else if (directAdapter(name) != null) {
+                    String directName = Prefix.DIRECT_PREFIX + name.getName();
+                    code.addStatement("$L = $L != null ? $L.read(in) : $L", arg, directName, directName, readAdapter);
+                } else {
+                    code.addStatement("$L = $L", arg, readAdapter);
+                }
+                code.addStatement("break").unindent();
+            }
+            code.add("default:\n").indent()
+                    .addStatement("in.skipValue()")
+                    .unindent();
+
+            code.endControlFlow()
+                    .endControlFlow()
+                    .addStatement("in.endObject()");
+        }
+        code.add(returnValue);
+
+        return MethodSpec.methodBuilder("read")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(classType)
+                .addParameter(valueReader ? GsonClassNames.VALUE_JSON_READER : GsonClassNames.JSON_READER, "in")
+                .addException(IOException.class)
+                .addCode(code.build())
+                .build();
+    }
+
+    /**
+     * Returns the code that creates the adapter of the given name.
+     */
+    private CodeBlock createAdapter(Name<?> name, List<TypeVariableName> typeVariables, Map<TypeName, String> typeTokens) {
+        DeclaredType typeAdapterClass = findTypeAdapterClass(name.annotations);
+        CodeBlock.Builder block = CodeBlock.builder();
+        if (typeAdapterClass != null) {
+            if (isInstance(typeAdapterClass, GsonClassNames.TYPE_ADAPTER.toString())) {
+                block.add("new $T(", typeAdapterClass);
+            } else if (isInstance(typeAdapterClass, GsonClassNames.TYPE_ADAPTER_FACTORY.toString())) {
+                block.add("new $T().create(gson, ", typeAdapterClass);
+                appendFieldTypeToken(block, name, typeVariables, typeTokens, /*allowClassType=*/false);
+            } else {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@JsonAdapter value must by TypeAdapter or TypeAdapterFactory reference.", name.element);
+            }
+        } else {
+            block.add("gson.getAdapter(");
+            appendFieldTypeToken(block, name, typeVariables, typeTokens, /*allowClassType=*/true);
+        }
+        block.add(")");
+        return block.build();
+    }
+
+    /**
+     * Creates the method that resolves a lazy adapter on first use. The field isn't volatile, so
+     * racing threads may each resolve it, which is harmless since they get equivalent adapters and
+     * gson's adapters are safely published through their final fields.
+     */
+    private MethodSpec lazyAdapterMethod(Name<?> name, List<TypeVariableName> typeVariables, Map<TypeName, String> typeTokens) {
+        String typeAdapterName = Prefix.TYPE_ADAPTER_PREFIX + name.getName();
+        TypeName typeAdapterType = ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, TypeName.get(name.getType()).box());
+        return MethodSpec.methodBuilder(typeAdapterName)
+                .addModifiers(Modifier.PRIVATE)
+                .returns(typeAdapterType)
+                .addStatement("$T adapter = $L", typeAdapterType, typeAdapterName)
+                .beginControlFlow("if (adapter == null)")
+                .addStatement("adapter = $L", createAdapter(name, typeVariables, typeTokens))
+                .addStatement("$L = adapter", typeAdapterName)
+                .endControlFlow()
+                .addStatement("return adapter")
+                .build();
+    }
+
+    /**
+     * Returns the expression that gets the adapter of the given name.
+     */
+    private String adapter(Name<?> name) {
+        String typeAdapterName = Prefix.TYPE_ADAPTER_PREFIX + name.getName();
+        return isLazy(name) ? typeAdapterName + "()" : typeAdapterName;
+    }
+
+    /**
+     * Returns true if the adapter of the given name is resolved on first use. Adapters that may be
+     * skipped for built-in ones are always resolved up front since they're needed to check that.
+     */
+    private boolean isLazy(Name<?> name) {
+        return lazyAdapters && !hasBuiltInPath(name);
+    }
+
+    /**
+     * Returns the generated adapter class of the given name's type if it can be called directly, or
+     * null if it has to go through {@code TypeAdapter}. Only eagerly resolved adapters of
+     * non-generic types are linked this way.
+     */
+    private ClassName directAdapter(Name<?> name) {
+        if (isLazy(name) || findTypeAdapterClass(name.annotations) != null) {
+            return null;
+        }
+        DeclaredType type = asDeclaredType(name.getType());
+        if (type == null || !type.getTypeArguments().isEmpty()) {
+            return null;
+        }
+        TypeElement element = (TypeElement) type.asElement();
+        if (!element.getTypeParameters().isEmpty() || !hasGeneratedAdapter(element)) {
+            return null;
+        }
+        ClassName className = ClassName.get(element);
+        return ClassName.get(className.packageName(), Prefix.PREFIX + StringUtils.join("_", className.simpleNames()));
+    }
+
+    /**
+     * Returns true if an adapter is generated for the given class, because it or one of it's
+     * constructors, factory methods or nested builders is annotated.
+     */
+    private boolean hasGeneratedAdapter(TypeElement element) {
+        Boolean result = hasGeneratedAdapter.get(element);
+        if (result == null) {
+            result = isAnnotated(element) && element.equals(searchUtils.forElement(element).findClass());
+            if (!result) {
+                result = hasAnnotatedMember(element, element);
+            }
+            hasGeneratedAdapter.put(element, result);
+        }
+        return result;
+    }
+
+    private boolean hasAnnotatedMember(TypeElement classElement, TypeElement enclosing) {
+        for (Element member : enclosing.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR || member.getKind() == ElementKind.METHOD) {
+                if (isAnnotated(member) && classElement.equals(searchUtils.forElement(member).findClass())) {
+                    return true;
+                }
+            } else if (member instanceof TypeElement && hasAnnotatedMember(classElement, (TypeElement) member)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAnnotated(Element element) {
+        return element.getAnnotation(GsonConstructor.class) != null || element.getAnnotation(GsonBuilder.class) != null;
+    }
+
+    /**
+     * Returns true if the adapter of the given name is created from the type arguments of the
+     * adapter's own type.
+     */
+    private boolean needsTypeArguments(Name<?> name) {
+        if (!usesTypeToken(name)) {
+            return false;
+        }
+        TypeMirror type = name.getType();
+        return isGenericType(type) || (isComplexType(type) && containsTypeVariable(type) && typeArguments(type, Collections.<TypeVariableName>emptyList(), true) != null);
+    }
+
+    /**
+     * Returns true if the adapter of the given name is created from it's type, instead of only from
+     * a {@code @JsonAdapter} class.
+     */
+    private boolean usesTypeToken(Name<?> name) {
+        DeclaredType typeAdapterClass = findTypeAdapterClass(name.annotations);
+        return typeAdapterClass == null || !isInstance(typeAdapterClass, GsonClassNames.TYPE_ADAPTER.toString());
+    }
+
+    private static void addJsonNameField(TypeSpec.Builder spec, Name<?> name) {
+        String serializeName = name.getSerializeName();
+        spec.addField(FieldSpec.builder(GsonClassNames.JSON_NAME, Prefix.NAME_PREFIX + name.getName())
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T($S, $S)", GsonClassNames.JSON_NAME, serializeName, StringUtils.jsonQuote(serializeName))
+                .build());
+    }
+
+    private void addWriteValue(CodeBlock.Builder code, Name<?> name, String value) {
+        String typeAdapterName = adapter(name);
+        CodeBlock builtInWrite = builtInWrite(name, value);
+        if (builtInWrite != null) {
+            // Write primitives and strings directly instead of boxing them through the adapter.
+            code.beginControlFlow("if ($L)", Prefix.BUILT_IN_PREFIX + name.getName())
+                    .addStatement("$L", builtInWrite)
+                    .nextControlFlow("else")
+                    .addStatement("$L.write(out, $L)", typeAdapterName, value)
+                    .endControlFlow();
+        } else if (directAdapter(name) != null) {
+            // Call the generated adapter directly so the call can be inlined.
+            String directName = Prefix.DIRECT_PREFIX + name.getName();
+            code.beginControlFlow("if ($L != null)", directName)
+                    .addStatement("$L.write(out, $L)", directName, value)
+                    .nextControlFlow("else")
+                    .addStatement("$L.write(out, $L)", typeAdapterName, value)
+                    .endControlFlow();
+        } else {
+            code.addStatement("$L.write(out, $L)", typeAdapterName, value);
+        }
+    }
+
     private void addFieldsAndGetters(Names names, TypeElement classElement) {
         // getters
         for (ExecutableElement method : ElementFilter.methodsIn(classElement.getEnclosedElements())) {
@@ -319,32 +635,19 @@ public class GsonValueProcessor extends AbstractProcessor {
         }
     }
 
-    private void appendFieldTypeToken(CodeBlock.Builder block, Name<?> name, List<TypeVariableName> typeVariables, boolean allowClassType) {
+    private void appendFieldTypeToken(CodeBlock.Builder block, Name<?> name, List<TypeVariableName> typeVariables, Map<TypeName, String> typeTokens, boolean allowClassType) {
         TypeMirror type = name.getType();
         TypeName typeName = TypeName.get(type);
 
-        if (isComplexType(type)) {
-            TypeName typeTokenType = ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, typeName);
-            List<? extends TypeMirror> typeParams = getGenericTypes(type);
-            if (typeParams.isEmpty()) {
-                block.add("new $T() {}", typeTokenType);
-            } else {
-                block.add("($T) $T.getParameterized($T.class, ", typeTokenType, GsonClassNames.TYPE_TOKEN, typeUtils.erasure(type));
-                for (Iterator<? extends TypeMirror> iterator = typeParams.iterator(); iterator.hasNext(); ) {
-                    TypeMirror typeParam = iterator.next();
-                    int typeIndex = typeVariables.indexOf(TypeVariableName.get(typeParam.toString()));
-                    block.add("(($T)typeToken.getType()).getActualTypeArguments()[$L]", ParameterizedType.class, typeIndex);
-                    if (iterator.hasNext()) {
-                        block.add(", ");
-                    }
-                }
-                block.add(")");
-            }
+        String typeTokenName = typeTokens.get(typeName);
+        if (typeTokenName != null) {
+            block.add("$L", typeTokenName);
+        } else if (isComplexType(type)) {
+            block.add(typeToken(type, typeVariables));
         } else if (isGenericType(type)) {
             TypeName typeTokenType = ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, typeName);
-            int typeIndex = typeVariables.indexOf(TypeVariableName.get(name.getType().toString()));
-            block.add("($T) $T.get((($T)typeToken.getType()).getActualTypeArguments()[$L])",
-                    typeTokenType, GsonClassNames.TYPE_TOKEN, ParameterizedType.class, typeIndex);
+            int typeIndex = typeVariables.indexOf(TypeVariableName.get(type.toString()));
+            block.add("($T) $T.get(typeArguments[$L])", typeTokenType, GsonClassNames.TYPE_TOKEN, typeIndex);
         } else {
             if (allowClassType) {
                 block.add("$T.class", typeName);
@@ -354,6 +657,112 @@ public class GsonValueProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Returns the code that creates a type token for the given complex type. It's built with
+     * {@code TypeToken.getParameterized()} when possible, type variables are taken from
+     * {@code typeArguments}. Otherwise, for example with wildcards, it falls back to an anonymous
+     * subclass.
+     */
+    private CodeBlock typeToken(TypeMirror type, List<TypeVariableName> typeVariables) {
+        TypeName typeTokenType = ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, TypeName.get(type));
+        DeclaredType declaredType = asDeclaredType(type);
+        if (declaredType.getTypeArguments().isEmpty()) {
+            return CodeBlock.builder().add("$T.get($T.class)", GsonClassNames.TYPE_TOKEN, typeUtils.erasure(type)).build();
+        }
+        CodeBlock arguments = typeArguments(declaredType, typeVariables, false);
+        if (arguments == null) {
+            return CodeBlock.builder().add("new $T() {}", typeTokenType).build();
+        }
+        return CodeBlock.builder()
+                .add("($T) $T.getParameterized($T.class, ", typeTokenType, GsonClassNames.TYPE_TOKEN, typeUtils.erasure(type))
+                .add(arguments)
+                .add(")")
+                .build();
+    }
+
+    /**
+     * Returns the type arguments of the given type as a list of {@code java.lang.reflect.Type}
+     * expressions, or null if they can't be expressed without an anonymous type token.
+     *
+     * @param anyTypeVariable if true, any type variable is allowed, used to check if they can be
+     *                        expressed before the type variables are known.
+     */
+    private CodeBlock typeArguments(TypeMirror type, List<TypeVariableName> typeVariables, boolean anyTypeVariable) {
+        DeclaredType declaredType = asDeclaredType(type);
+        if (declaredType == null || declaredType.getEnclosingType().getKind() != TypeKind.NONE) {
+            // Gson can't create parameterized types of inner classes without an owner.
+            return null;
+        }
+        CodeBlock.Builder block = CodeBlock.builder();
+        for (Iterator<? extends TypeMirror> iterator = declaredType.getTypeArguments().iterator(); iterator.hasNext(); ) {
+            CodeBlock argument = typeExpression(iterator.next(), typeVariables, anyTypeVariable);
+            if (argument == null) {
+                return null;
+            }
+            block.add(argument);
+            if (iterator.hasNext()) {
+                block.add(", ");
+            }
+        }
+        return block.build();
+    }
+
+    private CodeBlock typeExpression(TypeMirror type, List<TypeVariableName> typeVariables, boolean anyTypeVariable) {
+        switch (type.getKind()) {
+            case TYPEVAR: {
+                int typeIndex = typeVariables.indexOf(TypeVariableName.get(type.toString()));
+                if (typeIndex < 0 && !anyTypeVariable) {
+                    return null;
+                }
+                return CodeBlock.builder().add("typeArguments[$L]", typeIndex).build();
+            }
+            case ARRAY:
+                if (containsTypeVariable(type) || isComplexType(((ArrayType) type).getComponentType())) {
+                    return null;
+                }
+                return CodeBlock.builder().add("$T.class", TypeName.get(type)).build();
+            case DECLARED: {
+                if (((DeclaredType) type).getTypeArguments().isEmpty()) {
+                    return CodeBlock.builder().add("$T.class", typeUtils.erasure(type)).build();
+                }
+                CodeBlock arguments = typeArguments(type, typeVariables, anyTypeVariable);
+                if (arguments == null) {
+                    return null;
+                }
+                return CodeBlock.builder()
+                        .add("$T.getParameterized($T.class, ", GsonClassNames.TYPE_TOKEN, typeUtils.erasure(type))
+                        .add(arguments)
+                        .add(").getType()")
+                        .build();
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static boolean containsTypeVariable(TypeMirror type) {
+        switch (type.getKind()) {
+            case TYPEVAR:
+                return true;
+            case ARRAY:
+                return containsTypeVariable(((ArrayType) type).getComponentType());
+            case DECLARED:
+                for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                    if (containsTypeVariable(argument)) {
+                        return true;
+                    }
+                }
+                return false;
+            case WILDCARD: {
+                WildcardType wildcardType = (WildcardType) type;
+                return (wildcardType.getExtendsBound() != null && containsTypeVariable(wildcardType.getExtendsBound()))
+                        || (wildcardType.getSuperBound() != null && containsTypeVariable(wildcardType.getSuperBound()));
+            }
+            default:
+                return false;
+        }
+    }
+
     @Override
     public Set<String> getSupportedAnnotationTypes() {
         return new LinkedHashSet<>(Arrays.asList(
@@ -362,6 +771,11 @@ public class GsonValueProcessor extends AbstractProcessor {
         ));
     }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_LAZY_ADAPTERS);
+    }
+
     private static String getDefaultValue(TypeMirror type) {
         switch (type.getKind()) {
             case BYTE:
@@ -379,6 +793,78 @@ public class GsonValueProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Returns true if the given name is read or written without it's adapter when gson uses the
+     * built-in one.
+     */
+    private boolean hasBuiltInPath(Name<?> name) {
+        if (findTypeAdapterClass(name.annotations) != null) {
+            return false;
+        }
+        TypeMirror type = name.getType();
+        return (type.getKind().isPrimitive() && type.getKind() != TypeKind.CHAR)
+                || type.toString().equals(String.class.getName());
+    }
+
+    /**
+     * Returns the code that writes the given value without boxing, or null if it has to be written
+     * with it's adapter.
+     */
+    private CodeBlock builtInWrite(Name<?> name, String value) {
+        if (findTypeAdapterClass(name.annotations) != null) {
+            return null;
+        }
+        TypeMirror type = name.getType();
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return CodeBlock.builder().add("out.value($L)", value).build();
+            case DOUBLE:
+                // Has to reject NaN and infinity like gson does.
+                return CodeBlock.builder().add("$T.writeDouble(out, $L)", GsonClassNames.BUILT_IN_ADAPTERS, value).build();
+            case DECLARED:
+                // Floats and chars are left alone since gson formats them differently.
+                return type.toString().equals(String.class.getName())
+                        ? CodeBlock.builder().add("out.value($L)", value).build()
+                        : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the {@code BuiltInAdapters} method that reads the given param directly, or null if it
+     * has to be read with it's adapter.
+     */
+    private String builtInReadMethod(Name<?> name) {
+        if (findTypeAdapterClass(name.annotations) != null) {
+            return null;
+        }
+        switch (name.getType().getKind()) {
+            case BOOLEAN:
+                return "nextBoolean";
+            case BYTE:
+                return "nextByte";
+            case SHORT:
+                return "nextShort";
+            case INT:
+                return "nextInt";
+            case LONG:
+                return "nextLong";
+            case FLOAT:
+                return "nextFloat";
+            case DOUBLE:
+                return "nextDouble";
+            case DECLARED:
+                return name.getType().toString().equals(String.class.getName()) ? "nextString" : null;
+            default:
+                return null;
+        }
+    }
+
     private DeclaredType findTypeAdapterClass(List<? extends AnnotationMirror> annotations) {
         for (AnnotationMirror annotation : annotations) {
             String typeName = annotation.getAnnotationType().toString();
@@ -406,20 +892,6 @@ public class GsonValueProcessor extends AbstractProcessor {
         return type.getKind() == TypeKind.TYPEVAR;
     }
 
-    private List<? extends TypeMirror> getGenericTypes(TypeMirror type) {
-        DeclaredType declaredType = asDeclaredType(type);
-        if (declaredType == null) {
-            return Collections.emptyList();
-        }
-        ArrayList<TypeMirror> result = new ArrayList<>();
-        for (TypeMirror argType : declaredType.getTypeArguments()) {
-            if (argType.getKind() == TypeKind.TYPEVAR) {
-                result.add(argType);
-            }
-        }
-        return result;
-    }
-
     private static DeclaredType asDeclaredType(TypeMirror type) {
         return type.accept(new SimpleTypeVisitor6<DeclaredType, Object>() {
             @Override
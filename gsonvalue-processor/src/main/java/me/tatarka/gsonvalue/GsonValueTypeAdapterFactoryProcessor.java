@@ -14,10 +14,12 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.*;
 
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
 public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
@@ -26,6 +28,8 @@ public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
     private Types typeUtils;
     private Elements elementUtils;
     private SearchUtils searchUtils;
+    private List<String> indexNames;
+    private List<Element> indexElements;
 
     @Override
     public synchronized void init(ProcessingEnvironment env) {
@@ -33,11 +37,14 @@ public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
         messager = env.getMessager();
         typeUtils = env.getTypeUtils();
         elementUtils = env.getElementUtils();
-        searchUtils = new SearchUtils(messager, env.getTypeUtils());
+        searchUtils = SearchUtils.get(env);
+        indexNames = new ArrayList<>();
+        indexElements = new ArrayList<>();
     }
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        searchUtils.startRound(roundEnv);
         Set<TypeElement> elements = new LinkedHashSet<>();
         for (Element element : roundEnv.getElementsAnnotatedWith(GsonConstructor.class)) {
             TypeElement aClass = searchUtils.forElement(element).findClass();
@@ -53,6 +60,12 @@ public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
             }
             elements.add(aClass);
         }
+        if (!elements.isEmpty() && elementUtils.getTypeElement(GsonClassNames.VALUE_TYPE_ADAPTER_INDEX.toString()) != null) {
+            writeIndex(elements);
+        }
+        if (roundEnv.processingOver() && !indexNames.isEmpty()) {
+            writeIndexServices();
+        }
         Set<? extends Element> adaptorFactories = roundEnv.getElementsAnnotatedWith(GsonValueTypeAdapterFactory.class);
         for (Element adapter : adaptorFactories) {
             if (!adapter.getModifiers().contains(Modifier.ABSTRACT)) {
@@ -79,6 +92,11 @@ public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
     private TypeSpec createTypeAdapterFactory(Element adapter, ClassName className, Set<TypeElement> elements) {
         TypeSpec.Builder factory = TypeSpec.classBuilder(Prefix.FACTORY_PREFIX + className.simpleName());
         factory.addModifiers(Modifier.FINAL);
+        // The factory aggregates all value classes, so it's regenerated when any of them changes.
+        factory.addOriginatingElement(adapter);
+        for (TypeElement element : elements) {
+            factory.addOriginatingElement(element);
+        }
         factory.superclass(className);
 
         ParameterSpec gson = ParameterSpec.builder(GsonClassNames.GSON, "gson").build();
@@ -97,14 +115,53 @@ public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
                 .addParameters(Arrays.asList(gson, type))
                 .returns(result);
 
+        boolean cacheAdapters = adapter.getAnnotation(GsonValueTypeAdapterFactory.class).cacheAdapters();
+
         if (elements.isEmpty()) {
             create.addStatement("return null");
         } else {
-            MethodSpec.Builder builder = create.beginControlFlow("switch (type.getRawType().getName())");
+            // Dispatch on class identity, the ids are only used to switch on.
+            ParameterizedTypeName typesType = ParameterizedTypeName.get(ClassName.get(Map.class),
+                    ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)),
+                    ClassName.get(Integer.class));
+            factory.addField(FieldSpec.builder(typesType, "TYPES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T<>($L)", IdentityHashMap.class, elements.size())
+                    .build());
+            CodeBlock.Builder types = CodeBlock.builder();
+            int id = 0;
+            for (TypeElement element : elements) {
+                types.addStatement("TYPES.put($T.class, $L)", ClassName.get(element), id++);
+            }
+            factory.addStaticBlock(types.build());
+            if (cacheAdapters) {
+                addAdapterCache(factory, elements.size());
+            }
+
+            create.addStatement("$T id = TYPES.get(type.getRawType())", Integer.class)
+                    .beginControlFlow("if (id == null)")
+                    .addStatement("return null")
+                    .endControlFlow();
+            MethodSpec.Builder builder = create.beginControlFlow("switch (id)");
+            id = 0;
             for (TypeElement element : elements) {
                 ClassName elementClassName = ClassName.get(element);
                 ClassName typeAdapterClassName = ClassName.get(elementClassName.packageName(), Prefix.PREFIX + StringUtils.join("_", elementClassName.simpleNames()));
-                builder.addStatement("case $S:\n$>return ($T) new $T(gson, ($T) type)$<", classLiteralName(elementClassName), ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, TypeVariableName.get("T")), typeAdapterClassName, ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, elementClassName));
+                ParameterizedTypeName typeAdapterType = ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, TypeVariableName.get("T"));
+                ParameterizedTypeName typeTokenType = ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, elementClassName);
+                // A generic class may be created with different type arguments, so only non-generic
+                // adapters can be cached.
+                if (cacheAdapters && element.getTypeParameters().isEmpty()) {
+                    builder.addCode("case $L: {\n$>", id)
+                            .addStatement("$T<?> adapter = getCachedAdapter(gson, $L)", GsonClassNames.TYPE_ADAPTER, id)
+                            .beginControlFlow("if (adapter == null)")
+                            .addStatement("adapter = putCachedAdapter(gson, $L, new $T(gson, ($T) type))", id, typeAdapterClassName, typeTokenType)
+                            .endControlFlow()
+                            .addStatement("return ($T) adapter", typeAdapterType)
+                            .addCode("$<}\n");
+                } else {
+                    builder.addStatement("case $L:\n$>return ($T) new $T(gson, ($T) type)$<", id, typeAdapterType, typeAdapterClassName, typeTokenType);
+                }
+                id++;
             }
             builder.addStatement("default:\n$>return null$<");
             builder.endControlFlow();
@@ -114,8 +171,168 @@ public class GsonValueTypeAdapterFactoryProcessor extends AbstractProcessor {
         return factory.build();
     }
 
+    /**
+     * Adds a cache of created adapters per gson instance. Both the gson instances and adapters are
+     * held weakly since adapters usually reference the gson instance that created them.
+     */
+    private void addAdapterCache(TypeSpec.Builder factory, int size) {
+        TypeName adapterRef = ParameterizedTypeName.get(ClassName.get(WeakReference.class), WildcardTypeName.subtypeOf(Object.class));
+        TypeName adapterType = ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, WildcardTypeName.subtypeOf(Object.class));
+        TypeName adaptersType = ParameterizedTypeName.get(ClassName.get(Map.class), GsonClassNames.GSON, ArrayTypeName.of(adapterRef));
+        factory.addField(FieldSpec.builder(adaptersType, "adapters", Modifier.PRIVATE, Modifier.FINAL)
+                .initializer("new $T<>()", WeakHashMap.class)
+                .build());
+
+        factory.addMethod(MethodSpec.methodBuilder("getCachedAdapter")
+                .addModifiers(Modifier.PRIVATE)
+                .returns(adapterType)
+                .addParameter(GsonClassNames.GSON, "gson")
+                .addParameter(int.class, "id")
+                .beginControlFlow("synchronized (adapters)")
+                .addStatement("$T[] cache = adapters.get(gson)", adapterRef)
+                .addStatement("return cache != null && cache[id] != null ? ($T) cache[id].get() : null", adapterType)
+                .endControlFlow()
+                .build());
+
+        factory.addMethod(MethodSpec.methodBuilder("putCachedAdapter")
+                .addModifiers(Modifier.PRIVATE)
+                .returns(adapterType)
+                .addParameter(GsonClassNames.GSON, "gson")
+                .addParameter(int.class, "id")
+                .addParameter(adapterType, "adapter")
+                .beginControlFlow("synchronized (adapters)")
+                .addStatement("$T[] cache = adapters.get(gson)", adapterRef)
+                .beginControlFlow("if (cache == null)")
+                .addStatement("cache = new $T[$L]", ClassName.get(WeakReference.class), size)
+                .addStatement("adapters.put(gson, cache)")
+                .endControlFlow()
+                .addStatement("cache[id] = new $T<>(adapter)", WeakReference.class)
+                .addStatement("return adapter")
+                .endControlFlow()
+                .build());
+    }
+
+    /**
+     * Writes an index of the adapters generated this round so that {@code ValueTypeAdapterFactory}
+     * can find them without probing the class loader. Indexes are registered as services when
+     * processing is over.
+     */
+    private void writeIndex(Set<TypeElement> elements) {
+        List<ClassName> classNames = new ArrayList<>();
+        for (TypeElement element : elements) {
+            classNames.add(ClassName.get(element));
+        }
+        Collections.sort(classNames, new Comparator<ClassName>() {
+            @Override
+            public int compare(ClassName o1, ClassName o2) {
+                return classLiteralName(o1).compareTo(classLiteralName(o2));
+            }
+        });
+        List<String> names = new ArrayList<>();
+        for (ClassName className : classNames) {
+            names.add(classLiteralName(className));
+        }
+        // Adapters in the default package can't be referenced from any other, so the index goes
+        // there if any class is in it.
+        String packageName = classNames.get(0).packageName();
+        for (ClassName className : classNames) {
+            if (className.packageName().isEmpty()) {
+                packageName = "";
+                break;
+            }
+        }
+        // Name the index after it's contents so that indexes from different compilations don't clash.
+        ClassName indexName = ClassName.get(packageName,
+                Prefix.INDEX_PREFIX + Integer.toHexString(StringUtils.join(",", names).hashCode()));
+
+        JavaFile file = JavaFile.builder(indexName.packageName(), createIndex(indexName, classNames, elements)).build();
+        try {
+            file.writeTo(processingEnv.getFiler());
+            indexNames.add(indexName.toString());
+            indexElements.addAll(elements);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write ValueTypeAdapterIndex: " + e.getLocalizedMessage());
+        }
+    }
+
+    private TypeSpec createIndex(ClassName indexName, List<ClassName> classNames, Set<TypeElement> elements) {
+        TypeSpec.Builder index = TypeSpec.classBuilder(indexName.simpleName())
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(GsonClassNames.VALUE_TYPE_ADAPTER_INDEX);
+        for (TypeElement element : elements) {
+            index.addOriginatingElement(element);
+        }
+
+        CodeBlock.Builder names = CodeBlock.builder().add("return new $T[] {", String.class);
+        for (int i = 0; i < classNames.size(); i++) {
+            if (i > 0) {
+                names.add(", ");
+            }
+            names.add("$S", classLiteralName(classNames.get(i)));
+        }
+        names.add("};\n");
+        index.addMethod(MethodSpec.methodBuilder("classNames")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .returns(String[].class)
+                .addCode(names.build())
+                .build());
+
+        MethodSpec.Builder create = MethodSpec.methodBuilder("create")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                        .addMember("value", "{\"unchecked\", \"rawtypes\"}")
+                        .build())
+                .addParameter(int.class, "id")
+                .addParameter(GsonClassNames.GSON, "gson")
+                .addParameter(ParameterizedTypeName.get(GsonClassNames.TYPE_TOKEN, WildcardTypeName.subtypeOf(Object.class)), "type")
+                .returns(ParameterizedTypeName.get(GsonClassNames.TYPE_ADAPTER, WildcardTypeName.subtypeOf(Object.class)));
+        // The raw TypeToken cast means the value class doesn't have to be accessible from the
+        // index's package.
+        create.beginControlFlow("switch (id)");
+        for (int i = 0; i < classNames.size(); i++) {
+            ClassName elementClassName = classNames.get(i);
+            ClassName typeAdapterClassName = ClassName.get(elementClassName.packageName(), Prefix.PREFIX + StringUtils.join("_", elementClassName.simpleNames()));
+            create.addStatement("case $L:\n$>return new $T(gson, ($T) type)$<", i, typeAdapterClassName, GsonClassNames.TYPE_TOKEN);
+        }
+        create.addStatement("default:\n$>return null$<");
+        create.endControlFlow();
+        index.addMethod(create.build());
+
+        return index.build();
+    }
+
+    private void writeIndexServices() {
+        Writer writer = null;
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + GsonClassNames.VALUE_TYPE_ADAPTER_INDEX,
+                    indexElements.toArray(new Element[indexElements.size()]));
+            writer = file.openWriter();
+            for (String indexName : indexNames) {
+                writer.write(indexName);
+                writer.write("\n");
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write ValueTypeAdapterIndex services: " + e.getLocalizedMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the class as returned by {@link Class#getName()}.
+     */
     private String classLiteralName(ClassName className) {
-        return className.packageName() + "." + StringUtils.join("$", className.simpleNames());
+        String simpleName = StringUtils.join("$", className.simpleNames());
+        return className.packageName().isEmpty() ? simpleName : className.packageName() + "." + simpleName;
     }
 
     private boolean implementsTypeAdapterFactory(TypeElement type) {
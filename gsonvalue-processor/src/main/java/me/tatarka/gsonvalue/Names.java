@@ -5,7 +5,10 @@ import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 class Names {
@@ -60,19 +63,34 @@ class Names {
         removeGettersForTransientFields();
         mergeSerializeNames(params, fields, getters);
         removeExtraFields();
-        names.addAll(params);
+        checkDuplicateSerializeNames(params);
+        Set<String> seen = new HashSet<>();
+        for (Name param : params) {
+            seen.add(param.getName());
+            names.add(param);
+        }
         for (Name field : fields) {
-            if (!containsName(names, field)) {
+            if (seen.add(field.getName())) {
                 names.add(field);
             }
         }
         for (Name getter : getters) {
-            if (!containsName(names, getter)) {
+            if (seen.add(getter.getName())) {
                 names.add(getter);
             }
         }
     }
 
+    private static void checkDuplicateSerializeNames(List<Name> params) throws ElementException {
+        Map<String, Name> seen = new HashMap<>(params.size() * 2);
+        for (Name param : params) {
+            Name other = seen.put(param.getSerializeName(), param);
+            if (other != null) {
+                throw new ElementException("Duplicate serialized name \"" + param.getSerializeName() + "\" found on " + other + " and " + param, param.element);
+            }
+        }
+    }
+
     private static void merge(Name<?>... names) throws ElementException {
         if (names.length == 0) {
             return;
@@ -137,35 +155,45 @@ class Names {
     }
 
     private void removeExtraBuilders() {
-        for (int i = builderParams.size() - 1; i >= 0; i--) {
-            Name.BuilderParamName builderParam = builderParams.get(i);
-            if (containsName(constructorParams, builderParam)) {
-                builderParams.remove(i);
-                params.remove(builderParam);
+        Map<String, Name.ConstructorParamName> constructorParamsByName = index(constructorParams);
+        List<Name.BuilderParamName> keptBuilderParams = new ArrayList<>(builderParams.size());
+        List<Name> keptParams = new ArrayList<>(params.size());
+        for (Name param : params) {
+            if (!(param instanceof Name.BuilderParamName)) {
+                keptParams.add(param);
+            } else if (!constructorParamsByName.containsKey(param.getName())) {
+                keptBuilderParams.add((Name.BuilderParamName) param);
+                keptParams.add(param);
             }
         }
+        builderParams = keptBuilderParams;
+        params = keptParams;
     }
 
     private void removeExtraFields() {
-        for (int i = fields.size() - 1; i >= 0; i--) {
-            Name.FieldName field = fields.get(i);
+        Map<String, Name.GetterName> gettersByName = index(getters);
+        List<Name.FieldName> keptFields = new ArrayList<>(fields.size());
+        for (Name.FieldName field : fields) {
             Set<Modifier> modifiers = field.element.getModifiers();
-            if (modifiers.contains(Modifier.PRIVATE)
-                    || modifiers.contains(Modifier.TRANSIENT)
-                    || containsName(getters, field)) {
-                fields.remove(i);
+            if (!modifiers.contains(Modifier.PRIVATE)
+                    && !modifiers.contains(Modifier.TRANSIENT)
+                    && !gettersByName.containsKey(field.getName())) {
+                keptFields.add(field);
             }
         }
+        fields = keptFields;
     }
 
     private void removeGettersForTransientFields() {
-        for (int i = getters.size() - 1; i >= 0; i--) {
-            Name.GetterName getter = getters.get(i);
-            Name.FieldName field = findName(fields, getter);
-            if (field != null && field.element.getModifiers().contains(Modifier.TRANSIENT)) {
-                getters.remove(i);
+        Map<String, Name.FieldName> fieldsByName = index(fields);
+        List<Name.GetterName> keptGetters = new ArrayList<>(getters.size());
+        for (Name.GetterName getter : getters) {
+            Name.FieldName field = fieldsByName.get(getter.getName());
+            if (field == null || !field.element.getModifiers().contains(Modifier.TRANSIENT)) {
+                keptGetters.add(getter);
             }
         }
+        getters = keptGetters;
     }
 
     @SafeVarargs
@@ -173,27 +201,31 @@ class Names {
         if (nameLists.length == 0) {
             return;
         }
+        List<Map<String, ? extends Name>> indexes = new ArrayList<>(nameLists.length);
+        for (List<? extends Name> nameList : nameLists) {
+            indexes.add(index(nameList));
+        }
         for (Name name : nameLists[0]) {
             Name[] names = new Name[nameLists.length];
             names[0] = name;
             for (int i = 1; i < nameLists.length; i++) {
-                names[i] = findName(nameLists[i], name);
+                names[i] = indexes.get(i).get(name.getName());
             }
             merge(names);
         }
     }
 
-    private static <N extends Name> N findName(List<N> names, Name name) {
-        for (N n : names) {
-            if (n.getName().equals(name.getName())) {
-                return n;
+    /**
+     * Indexes the given names by name, keeping the first one when there are duplicates.
+     */
+    private static <N extends Name> Map<String, N> index(List<N> names) {
+        Map<String, N> index = new HashMap<>(names.size() * 2);
+        for (N name : names) {
+            if (!index.containsKey(name.getName())) {
+                index.put(name.getName(), name);
             }
         }
-        return null;
-    }
-
-    private static boolean containsName(List<? extends Name> names, Name name) {
-        return findName(names, name) != null;
+        return index;
     }
 
     private boolean isMethodToSkip(TypeElement classElement, ExecutableElement method) {
@@ -4,6 +4,12 @@ final class Prefix {
     static final String PREFIX = "ValueTypeAdapter_";
     static final String ARG_PREFIX = "_";
     static final String TYPE_ADAPTER_PREFIX = "adapter_";
+    static final String TYPE_TOKEN_PREFIX = "type_";
+    static final String BUILT_IN_PREFIX = "builtIn_";
+    static final String DIRECT_PREFIX = "direct_";
+    static final String NAME_PREFIX = "name_";
+    static final String NAME_TABLE = "NAMES";
 
     static final String FACTORY_PREFIX = "GsonValue_";
+    static final String INDEX_PREFIX = "GsonValueIndex_";
 }
@@ -3,33 +3,91 @@ package me.tatarka.gsonvalue;
 import me.tatarka.gsonvalue.annotations.GsonBuilder;
 
 import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.element.*;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 final class SearchUtils {
 
+    /**
+     * The search utils of each compilation, keyed by it's element utils. Held weakly since the
+     * searches reference the compilation's elements.
+     */
+    private static final Map<Elements, WeakReference<SearchUtils>> SHARED = new WeakHashMap<>();
+
     private final Messager messager;
     private final Types typeUtils;
+    /**
+     * The searches of the current round. Elements are only valid for the round they came from, so
+     * they aren't kept past it.
+     */
+    private final Map<Element, Search> searches = new HashMap<>();
+    private RoundEnvironment round;
 
-    SearchUtils(Messager messager, Types typeUtils) {
+    private SearchUtils(Messager messager, Types typeUtils) {
         this.messager = messager;
         this.typeUtils = typeUtils;
     }
 
+    /**
+     * Returns the search utils shared by the processors of a compilation, so that each annotated
+     * element is only searched once per round, by the first processor that sees it.
+     */
+    static SearchUtils get(ProcessingEnvironment env) {
+        synchronized (SHARED) {
+            WeakReference<SearchUtils> ref = SHARED.get(env.getElementUtils());
+            SearchUtils searchUtils = ref != null ? ref.get() : null;
+            if (searchUtils == null) {
+                searchUtils = new SearchUtils(env.getMessager(), env.getTypeUtils());
+                SHARED.put(env.getElementUtils(), new WeakReference<>(searchUtils));
+            }
+            return searchUtils;
+        }
+    }
+
+    /**
+     * Drops the searches of earlier rounds. Each processor calls this at the start of a round, only
+     * the first call for a round clears them.
+     */
+    void startRound(RoundEnvironment roundEnv) {
+        if (round != roundEnv) {
+            round = roundEnv;
+            searches.clear();
+        }
+    }
+
     Search forElement(Element element) {
-        return new Search(element);
+        Search search = searches.get(element);
+        if (search == null) {
+            search = new Search(element);
+            searches.put(element, search);
+        }
+        return search;
     }
 
+    /**
+     * The search for the class an annotated element constructs. Results, including failures, are
+     * cached so that errors are only reported once.
+     */
     class Search {
         private final Element element;
+        private boolean searchedExecutableElement;
         private ExecutableElement cachedExecutableElement;
+        private boolean searchedClass;
+        private TypeElement cachedClass;
 
         private Search(Element element) {
             this.element = element;
@@ -44,6 +102,14 @@ final class SearchUtils {
         }
 
         TypeElement findClass() {
+            if (!searchedClass) {
+                cachedClass = searchClass();
+                searchedClass = true;
+            }
+            return cachedClass;
+        }
+
+        private TypeElement searchClass() {
             ExecutableElement executableElement = findConstructorOrFactory();
             if (executableElement == null) {
                 return null;
@@ -58,7 +124,7 @@ final class SearchUtils {
                 if (isConstructor) {
                     builderClass = (TypeElement) element.getEnclosingElement();
                 } else {
-                    builderClass = (TypeElement) typeUtils.asElement(cachedExecutableElement.getReturnType());
+                    builderClass = (TypeElement) typeUtils.asElement(executableElement.getReturnType());
                 }
                 classElement = discoverBuiltClass(element, builderClass);
                 if (classElement == null) {
@@ -76,12 +142,16 @@ final class SearchUtils {
         }
 
         ExecutableElement findConstructorOrFactory() {
-            if (cachedExecutableElement != null) {
-                return cachedExecutableElement;
+            if (!searchedExecutableElement) {
+                cachedExecutableElement = searchConstructorOrFactory();
+                searchedExecutableElement = true;
             }
+            return cachedExecutableElement;
+        }
 
+        private ExecutableElement searchConstructorOrFactory() {
             if (element.getKind() == ElementKind.CONSTRUCTOR || element.getKind() == ElementKind.METHOD) {
-                return (cachedExecutableElement = (ExecutableElement) element);
+                return (ExecutableElement) element;
             }
             ExecutableElement noArgConstructor = null;
             List<ExecutableElement> constructors = ElementFilter.constructorsIn(element.getEnclosedElements());
@@ -104,7 +174,7 @@ final class SearchUtils {
                 constructors.add(noArgConstructor);
             }
             if (constructors.size() == 1) {
-                return (cachedExecutableElement = constructors.get(0));
+                return constructors.get(0);
             } else {
                 StringBuilder message = new StringBuilder("More than one constructor or factory method found. You should annotate the specific constructor of factory method instead of the class.\n");
                 for (ExecutableElement constructor : constructors) {
@@ -25,6 +25,52 @@ final class StringUtils {
         return result.toString();
     }
 
+    /**
+     * Quotes and escapes the given string the same way gson's {@code JsonWriter} does.
+     */
+    static String jsonQuote(String value) {
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                case '\b':
+                    result.append("\\b");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                case '\f':
+                    result.append("\\f");
+                    break;
+                case '\u2028':
+                case '\u2029':
+                    result.append(String.format("\\u%04x", (int) c));
+                    break;
+                default:
+                    if (c <= 0x1f) {
+                        result.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        result.append(c);
+                    }
+            }
+        }
+        result.append('"');
+        return result.toString();
+    }
+
     interface ToString<T> {
         String toString(T value);
     }
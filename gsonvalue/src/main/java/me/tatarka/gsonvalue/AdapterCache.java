@@ -0,0 +1,84 @@
+package me.tatarka.gsonvalue;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Caches created adapters per {@link Gson} instance, since an adapter holds on to delegates from
+ * the gson instance that created it.
+ * <p>
+ * Gson instances are held weakly, as are the adapters themselves. Adapters almost always reference
+ * their gson instance, so holding them strongly would keep the gson instance from ever being
+ * collected. Gson holds on to every adapter it has created, so they stay cached as long as the gson
+ * instance is in use.
+ */
+final class AdapterCache {
+    private final int maxSize;
+    private final Map<Gson, Adapters> caches = new WeakHashMap<Gson, Adapters>();
+
+    /**
+     * @param maxSize the maximum number of adapters to cache per gson instance, or 0 for no limit.
+     */
+    AdapterCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the adapters cached for the given gson instance.
+     */
+    Adapters forGson(Gson gson) {
+        synchronized (caches) {
+            Adapters adapters = caches.get(gson);
+            if (adapters == null) {
+                adapters = new Adapters(maxSize);
+                caches.put(gson, adapters);
+            }
+            return adapters;
+        }
+    }
+
+    static final class Adapters {
+        private final Map<TypeToken<?>, WeakReference<TypeAdapter<?>>> adapters;
+
+        Adapters(final int maxSize) {
+            adapters = new LinkedHashMap<TypeToken<?>, WeakReference<TypeAdapter<?>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TypeToken<?>, WeakReference<TypeAdapter<?>>> eldest) {
+                    return maxSize > 0 && size() > maxSize;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized <T> TypeAdapter<T> get(TypeToken<T> type) {
+            WeakReference<TypeAdapter<?>> ref = adapters.get(type);
+            return ref != null ? (TypeAdapter<T>) ref.get() : null;
+        }
+
+        /**
+         * Caches the given adapter unless one is already cached for the type, returning the cached
+         * adapter.
+         */
+        synchronized <T> TypeAdapter<T> putIfAbsent(TypeToken<T> type, TypeAdapter<T> adapter) {
+            TypeAdapter<T> existing = get(type);
+            if (existing != null) {
+                return existing;
+            }
+            adapters.put(type, new WeakReference<TypeAdapter<?>>(adapter));
+            return adapter;
+        }
+
+        synchronized int size() {
+            return adapters.size();
+        }
+    }
+}
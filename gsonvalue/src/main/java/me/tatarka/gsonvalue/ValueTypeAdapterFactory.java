@@ -7,46 +7,138 @@ import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ValueTypeAdapterFactory implements TypeAdapterFactory {
-    private static final ConcurrentMap<TypeToken<?>, TypeAdapter<?>> TYPE_MAP = new ConcurrentHashMap<TypeToken<?>, TypeAdapter<?>>();
+    /**
+     * The maximum number of classes remembered as not having a generated adapter. Once reached the
+     * cache is cleared and starts over.
+     */
+    private static final int MAX_MISSES = 1024;
+
+    /**
+     * Classes that are known to not have a generated adapter. Keyed on the class itself instead of
+     * it's name so that classes from different class loaders don't collide, and weakly so that they
+     * may still be unloaded.
+     */
+    private static final Map<Class<?>, Boolean> MISSES = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+
+    private final AdapterCache cache;
+    /**
+     * How to create the adapter for each value class, so that creating adapters for other
+     * parameterizations or gson instances doesn't have to find the adapter class again.
+     */
+    private final ConcurrentMap<Class<?>, AdapterCreator> creators = new ConcurrentHashMap<Class<?>, AdapterCreator>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public ValueTypeAdapterFactory() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new factory that caches at most {@code maxCachedAdapters} for each {@link Gson}
+     * instance it is registered with. A value of 0 means there is no limit.
+     */
+    public ValueTypeAdapterFactory(int maxCachedAdapters) {
+        cache = new AdapterCache(maxCachedAdapters);
+    }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
         Class<? super T> rawType = type.getRawType();
         if (!shouldLookForValueTypeAdapter(rawType)) {
             return null;
         }
+        if (MISSES.containsKey(rawType)) {
+            hitCount.incrementAndGet();
+            return null;
+        }
 
-        TypeAdapter<T> adapter = (TypeAdapter<T>) TYPE_MAP.get(type);
+        AdapterCache.Adapters adapters = cache.forGson(gson);
+        TypeAdapter<T> adapter = adapters.get(type);
         if (adapter != null) {
+            hitCount.incrementAndGet();
             return adapter;
         }
+        // Created without holding a lock, since the adapter's constructor asks gson for other
+        // adapters. If another thread created one in the meantime that one is used instead.
+        adapter = loadAdapter(gson, type);
+        return adapter != null ? adapters.putIfAbsent(type, adapter) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TypeAdapter<T> loadAdapter(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        missCount.incrementAndGet();
+
+        AdapterCreator creator = creators.get(rawType);
+        if (creator == null) {
+            creator = findCreator(rawType);
+            if (creator == null) {
+                addMiss(rawType);
+                return null;
+            }
+            creators.put(rawType, creator);
+        }
+        return (TypeAdapter<T>) creator.create(gson, type);
+    }
 
+    @SuppressWarnings("unchecked")
+    private static AdapterCreator findCreator(Class<?> rawType) {
+        // An index can only create adapters for classes from it's own class loader.
+        for (IndexEntry entry = Indexes.ENTRIES.get(rawType.getName()); entry != null; entry = entry.next) {
+            if (entry.index.getClass().getClassLoader() == rawType.getClassLoader()) {
+                return entry;
+            }
+        }
+
+        // Not indexed, the adapter may have been generated by an older version of the processor.
         Package p = rawType.getPackage();
         String packageName = p != null ? p.getName() + "." : "";
         String className = rawType.getName().substring(packageName.length()).replace('$', '_');
         String typeAdapterClassName = packageName + "ValueTypeAdapter_" + className;
 
         try {
-            Class<TypeAdapter<T>> typeAdapterClass = (Class<TypeAdapter<T>>) Class.forName(typeAdapterClassName);
-            Constructor<TypeAdapter<T>> constructor = typeAdapterClass.getConstructor(Gson.class, TypeToken.class);
-            TypeAdapter<T> typeAdapter = constructor.newInstance(gson, type);
-            TYPE_MAP.put(type, typeAdapter);
-            return typeAdapter;
+            Class<TypeAdapter<?>> typeAdapterClass = (Class<TypeAdapter<?>>) Class.forName(typeAdapterClassName);
+            return new ConstructorCreator(typeAdapterClass.getConstructor(Gson.class, TypeToken.class));
         } catch (ClassNotFoundException e) {
             return null;
         } catch (NoSuchMethodException e) {
             throw new RuntimeException("Could not load ValueTypeAdapter " + typeAdapterClassName, e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException("Could not load ValueTypeAdapter " + typeAdapterClassName, e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("Could not load ValueTypeAdapter " + typeAdapterClassName, e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException("Could not load ValueTypeAdapter " + typeAdapterClassName, e);
+        }
+    }
+
+    /**
+     * Returns the number of lookups that were answered from a cache, either with a previously
+     * created adapter or because the type is already known to not have a generated adapter.
+     */
+    public long cacheHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to create an adapter, or find out that there isn't a
+     * generated one.
+     */
+    public long cacheMissCount() {
+        return missCount.get();
+    }
+
+    private static void addMiss(Class<?> type) {
+        synchronized (MISSES) {
+            if (MISSES.size() >= MAX_MISSES) {
+                MISSES.clear();
+            }
+            MISSES.put(type, Boolean.TRUE);
         }
     }
 
@@ -65,4 +157,77 @@ public class ValueTypeAdapterFactory implements TypeAdapterFactory {
         }
         return true;
     }
+
+    /**
+     * Generated adapters listed in the compile-time indexes, keyed by class name. Loaded on first
+     * use. Indexes from different class loaders may list the same name, so entries with the same
+     * name are chained.
+     */
+    private static final class Indexes {
+        static final Map<String, IndexEntry> ENTRIES = load();
+
+        private static Map<String, IndexEntry> load() {
+            Map<String, IndexEntry> entries = new HashMap<String, IndexEntry>();
+            try {
+                for (ValueTypeAdapterIndex index : ServiceLoader.load(ValueTypeAdapterIndex.class, ValueTypeAdapterFactory.class.getClassLoader())) {
+                    String[] classNames = index.classNames();
+                    for (int i = 0; i < classNames.length; i++) {
+                        entries.put(classNames[i], new IndexEntry(index, i, entries.get(classNames[i])));
+                    }
+                }
+            } catch (ServiceConfigurationError e) {
+                // Anything not indexed is still found by name.
+            }
+            return entries;
+        }
+    }
+
+    private interface AdapterCreator {
+        TypeAdapter<?> create(Gson gson, TypeToken<?> type);
+    }
+
+    private static final class IndexEntry implements AdapterCreator {
+        final ValueTypeAdapterIndex index;
+        final int id;
+        /**
+         * The entry of another index with the same class name, or null.
+         */
+        final IndexEntry next;
+
+        IndexEntry(ValueTypeAdapterIndex index, int id, IndexEntry next) {
+            this.index = index;
+            this.id = id;
+            this.next = next;
+        }
+
+        @Override
+        public TypeAdapter<?> create(Gson gson, TypeToken<?> type) {
+            return index.create(id, gson, type);
+        }
+    }
+
+    /**
+     * Creates adapters that aren't indexed with their constructor. A {@code MethodHandle} would be
+     * about as fast once the constructor is found, but isn't available on Android before API 26.
+     */
+    private static final class ConstructorCreator implements AdapterCreator {
+        final Constructor<TypeAdapter<?>> constructor;
+
+        ConstructorCreator(Constructor<TypeAdapter<?>> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public TypeAdapter<?> create(Gson gson, TypeToken<?> type) {
+            try {
+                return constructor.newInstance(gson, type);
+            } catch (InstantiationException e) {
+                throw new RuntimeException("Could not create " + constructor.getDeclaringClass().getName(), e);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Could not create " + constructor.getDeclaringClass().getName(), e);
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException("Could not create " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package me.tatarka.gsonvalue;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * An index of the adapters generated in a single compilation. Implementations are generated by the
+ * annotation processor and registered as a {@link java.util.ServiceLoader} service so that
+ * {@link ValueTypeAdapterFactory} can find generated adapters without probing the class loader.
+ */
+public interface ValueTypeAdapterIndex {
+
+    /**
+     * Returns the names, as returned by {@link Class#getName()}, of the classes that have a
+     * generated adapter in this index. A class's position in this array is it's id.
+     */
+    String[] classNames();
+
+    /**
+     * Creates the generated adapter for the class with the given id.
+     */
+    TypeAdapter<?> create(int id, Gson gson, TypeToken<?> type);
+}
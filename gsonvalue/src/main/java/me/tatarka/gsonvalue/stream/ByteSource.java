@@ -0,0 +1,197 @@
+package me.tatarka.gsonvalue.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Where {@link ValueJsonReader} refills it's buffer from. The reader only parses UTF-8 bytes, chars
+ * from a {@link Reader} are encoded as they're read.
+ */
+abstract class ByteSource {
+
+    static ByteSource of(InputStream in) {
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        return new StreamSource(in);
+    }
+
+    static ByteSource of(Reader in) {
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        return new ReaderSource(in);
+    }
+
+    /**
+     * Reads the remaining bytes of the given buffer, advancing it's position.
+     */
+    static ByteSource of(ByteBuffer bytes) {
+        return new BufferSource(bytes);
+    }
+
+    /**
+     * Reads up to {@code length} bytes into the array, returning how many were read or -1 at the end
+     * of the input. At least one byte is read if {@code length} isn't 0.
+     */
+    abstract int read(byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Returns true if surrogate chars encoded on their own are kept when decoded. They can't come
+     * from valid UTF-8, but a {@link Reader} may have them and gson keeps them as-is.
+     */
+    boolean keepsSurrogates() {
+        return false;
+    }
+
+    void close() throws IOException {
+    }
+
+    private static class StreamSource extends ByteSource {
+        private final InputStream in;
+
+        StreamSource(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        int read(byte[] buffer, int offset, int length) throws IOException {
+            return in.read(buffer, offset, length);
+        }
+
+        @Override
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class BufferSource extends ByteSource {
+        private final ByteBuffer bytes;
+
+        BufferSource(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        int read(byte[] buffer, int offset, int length) {
+            if (!bytes.hasRemaining()) {
+                return -1;
+            }
+            int total = Math.min(bytes.remaining(), length);
+            bytes.get(buffer, offset, total);
+            return total;
+        }
+    }
+
+    /**
+     * Encodes the chars of a reader as UTF-8. Surrogates that aren't part of a pair are encoded on
+     * their own, so they read back as the same chars.
+     */
+    private static class ReaderSource extends ByteSource {
+        private final Reader in;
+        private final char[] chars = new char[1024];
+        private int pos;
+        private int limit;
+        /**
+         * The bytes of a char that didn't fit in the last read.
+         */
+        private final byte[] pending = new byte[4];
+        private int pendingPos;
+        private int pendingLimit;
+
+        ReaderSource(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        int read(byte[] buffer, int offset, int length) throws IOException {
+            int p = offset;
+            int end = offset + length;
+            while (pendingPos < pendingLimit && p < end) {
+                buffer[p++] = pending[pendingPos++];
+            }
+            if (p == end) {
+                return length;
+            }
+            if (pos == limit && !fillChars(0)) {
+                return p == offset ? -1 : p - offset;
+            }
+            while (p < end && pos < limit) {
+                char c = chars[pos];
+                if (c < 0x80) {
+                    buffer[p++] = (byte) c;
+                    pos++;
+                    continue;
+                }
+                int codePoint = c;
+                if (Character.isHighSurrogate(c)) {
+                    if (pos + 1 == limit) {
+                        if (p > offset) {
+                            // Return what there is rather than block for the rest of the pair.
+                            break;
+                        }
+                        chars[0] = c;
+                        pos = 0;
+                        limit = 1;
+                        fillChars(1);
+                    }
+                    if (pos + 1 < limit && Character.isLowSurrogate(chars[pos + 1])) {
+                        codePoint = Character.toCodePoint(c, chars[pos + 1]);
+                        pos++;
+                    }
+                }
+                pos++;
+                if (end - p >= 4) {
+                    p = encode(codePoint, buffer, p);
+                } else {
+                    pendingPos = 0;
+                    pendingLimit = encode(codePoint, pending, 0);
+                    while (pendingPos < pendingLimit && p < end) {
+                        buffer[p++] = pending[pendingPos++];
+                    }
+                }
+            }
+            return p - offset;
+        }
+
+        /**
+         * Reads more chars after the first {@code keep}, returning false if the reader has ended.
+         */
+        private boolean fillChars(int keep) throws IOException {
+            int total = in.read(chars, keep, chars.length - keep);
+            if (total == -1) {
+                return false;
+            }
+            pos = 0;
+            limit = keep + total;
+            return true;
+        }
+
+        private static int encode(int codePoint, byte[] buffer, int p) {
+            if (codePoint < 0x800) {
+                buffer[p++] = (byte) (0xc0 | (codePoint >> 6));
+            } else if (codePoint < 0x10000) {
+                buffer[p++] = (byte) (0xe0 | (codePoint >> 12));
+                buffer[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            } else {
+                buffer[p++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            }
+            buffer[p++] = (byte) (0x80 | (codePoint & 0x3f));
+            return p;
+        }
+
+        @Override
+        boolean keepsSurrogates() {
+            return true;
+        }
+
+        @Override
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
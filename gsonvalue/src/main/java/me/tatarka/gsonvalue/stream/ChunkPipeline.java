@@ -0,0 +1,138 @@
+package me.tatarka.gsonvalue.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Decodes chunks of input on an executor and passes their values to a callback on the thread that
+ * submits them, either in the order they were submitted or as they finish. At most the given number
+ * of chunks are submitted before their values are passed on.
+ */
+final class ChunkPipeline<T> {
+    private final Executor executor;
+    private final int maxInFlight;
+    private final boolean ordered;
+    private final ValueCallback<? super T> callback;
+    private final BlockingQueue<Chunk<T>> done = new LinkedBlockingQueue<>();
+    private final Map<Integer, Chunk<T>> pending = new HashMap<>();
+    private int submitted;
+    private int delivered;
+
+    ChunkPipeline(Executor executor, int maxInFlight, boolean ordered, ValueCallback<? super T> callback) {
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+        this.callback = callback;
+    }
+
+    /**
+     * Decodes the chunk on the executor, first waiting for room if too many are in flight.
+     */
+    void submit(final Chunk<T> chunk) throws IOException {
+        while (submitted - delivered >= maxInFlight) {
+            deliver();
+        }
+        chunk.index = submitted++;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    chunk.decode();
+                } catch (Throwable e) {
+                    chunk.failure = e;
+                }
+                done.add(chunk);
+            }
+        });
+    }
+
+    /**
+     * Waits for every submitted chunk and passes on their values.
+     */
+    void finish() throws IOException {
+        while (delivered < submitted) {
+            deliver();
+        }
+    }
+
+    private void deliver() throws IOException {
+        Chunk<T> chunk;
+        try {
+            chunk = done.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        if (!ordered) {
+            chunk.deliver(callback);
+            delivered++;
+            return;
+        }
+        pending.put(chunk.index, chunk);
+        while ((chunk = pending.remove(delivered)) != null) {
+            chunk.deliver(callback);
+            delivered++;
+        }
+    }
+
+    abstract static class Chunk<T> {
+        private int index;
+        /**
+         * The values that were read, and {@link ValueError}s for those that couldn't be.
+         */
+        private final List<Object> values = new ArrayList<>();
+        private Throwable failure;
+
+        /**
+         * Reads the values of the chunk with {@link #value(Object)} and {@link #error(long, Exception)}.
+         * Throwing fails the whole read.
+         */
+        abstract void decode() throws IOException;
+
+        final void value(T value) {
+            values.add(value);
+        }
+
+        final void error(long offset, Exception e) {
+            values.add(new ValueError(offset, e));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(ValueCallback<? super T> callback) throws IOException {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            for (Object value : values) {
+                if (value instanceof ValueError) {
+                    ValueError error = (ValueError) value;
+                    callback.onError(error.offset, error.exception);
+                } else {
+                    callback.onValue((T) value);
+                }
+            }
+        }
+    }
+
+    private static class ValueError {
+        final long offset;
+        final Exception exception;
+
+        ValueError(long offset, Exception exception) {
+            this.offset = offset;
+            this.exception = exception;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package me.tatarka.gsonvalue.stream;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of direct buffers that {@link Utf8JsonWriter} copies it's bytes into to write them to
+ * a channel. Buffers are only taken for the duration of a write, so a few are enough for many
+ * writers. Allocating direct buffers is slow and they're only freed when collected, so reusing them
+ * avoids both.
+ */
+final class DirectBufferPool {
+    static final int MAX_POOLED = 4;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger SIZE = new AtomicInteger();
+
+    private DirectBufferPool() {
+    }
+
+    /**
+     * Returns a cleared direct buffer with at least the given capacity.
+     */
+    static ByteBuffer take(int capacity) {
+        ByteBuffer buffer;
+        while ((buffer = POOL.poll()) != null) {
+            SIZE.decrementAndGet();
+            if (buffer.capacity() >= capacity) {
+                buffer.clear();
+                return buffer;
+            }
+            // too small for this writer, let a new one take it's place
+        }
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Returns the buffer to the pool, it's dropped if the pool is full.
+     */
+    static void give(ByteBuffer buffer) {
+        if (SIZE.incrementAndGet() <= MAX_POOLED) {
+            POOL.offer(buffer);
+        } else {
+            SIZE.decrementAndGet();
+        }
+    }
+}
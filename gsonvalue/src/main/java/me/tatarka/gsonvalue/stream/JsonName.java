@@ -0,0 +1,68 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A property name along with it's quoted and escaped json form. Generated adapters keep these as
+ * constants so that {@link ValueJsonWriter} can write the name without escaping it again, and
+ * {@link Utf8JsonWriter} without encoding it again.
+ */
+public final class JsonName {
+    final String name;
+    final String quoted;
+    /**
+     * The quoted form encoded as UTF-8, for {@link Utf8JsonWriter}.
+     */
+    final byte[] quotedUtf8;
+    /**
+     * If the quoted form is also valid when html characters need escaping.
+     */
+    final boolean htmlSafe;
+
+    /**
+     * @param name   the name
+     * @param quoted the name escaped as a json string, including the surrounding quotes.
+     */
+    public JsonName(String name, String quoted) {
+        this.name = name;
+        this.quoted = quoted;
+        this.quotedUtf8 = quoted.getBytes(Utf8JsonReader.UTF_8);
+        this.htmlSafe = !containsHtmlCharacters(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Writes this name to the given writer, as-is if it's a {@link ValueJsonWriter}.
+     */
+    public void writeTo(JsonWriter out) throws IOException {
+        if (out instanceof ValueJsonWriter) {
+            ((ValueJsonWriter) out).name(this);
+        } else {
+            out.name(name);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static boolean containsHtmlCharacters(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            switch (name.charAt(i)) {
+                case '<':
+                case '>':
+                case '&':
+                case '=':
+                case '\'':
+                    return true;
+            }
+        }
+        return false;
+    }
+}
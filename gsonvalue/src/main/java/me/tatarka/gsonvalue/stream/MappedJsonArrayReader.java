@@ -0,0 +1,296 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads the elements of a large top-level json array from a file, decoding ranges of elements in
+ * parallel. The file is memory-mapped and scanned for where elements end, and each range of
+ * elements is decoded on the given executor with a {@link Utf8JsonReader} reading from the mapped
+ * bytes, so the file is never copied to the heap. The values are passed to a
+ * {@link ValueCallback} on the calling thread.
+ * <pre><code>
+ * MappedJsonArrayReader&lt;Value&gt; reader = new MappedJsonArrayReader&lt;&gt;(gson.getAdapter(Value.class), executor);
+ * reader.read(channel, callback);
+ * </code></pre>
+ * Elements that can't be read are passed to {@link ValueCallback#onError(long, Exception)}.
+ * Anything after the array is ignored.
+ */
+public class MappedJsonArrayReader<T> {
+
+    private final TypeAdapter<T> adapter;
+    private final Executor executor;
+    private int rangeSize = 1024 * 1024;
+    private int maxRangesInFlight = 2 * Runtime.getRuntime().availableProcessors();
+    private boolean ordered = true;
+    /**
+     * The most bytes that are mapped at once, mapped buffers are indexed by int so it must be less
+     * than 2 GB. No element may be larger.
+     */
+    int windowSize = 1024 * 1024 * 1024;
+
+    public MappedJsonArrayReader(TypeAdapter<T> adapter, Executor executor) {
+        if (adapter == null) {
+            throw new NullPointerException("adapter == null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor == null");
+        }
+        this.adapter = adapter;
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the number of bytes of elements in each range that's decoded on the executor, ranges are
+     * larger if an element doesn't fit. The default is 1 MB.
+     */
+    public void setRangeSize(int rangeSize) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("rangeSize <= 0: " + rangeSize);
+        }
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Sets the number of ranges that may be scanned but not yet passed to the callback. The default
+     * is twice the number of processors.
+     */
+    public void setMaxRangesInFlight(int maxRangesInFlight) {
+        if (maxRangesInFlight <= 0) {
+            throw new IllegalArgumentException("maxRangesInFlight <= 0: " + maxRangesInFlight);
+        }
+        this.maxRangesInFlight = maxRangesInFlight;
+    }
+
+    /**
+     * Sets if values are passed to the callback in the order of the array, the default. Otherwise
+     * they are passed in the order ranges finish decoding, though values of the same range stay in
+     * order.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Reads all the elements of the array in the file, returning once every value has been passed to
+     * the callback. The channel is not closed.
+     */
+    public void read(FileChannel channel, ValueCallback<? super T> callback) throws IOException {
+        ChunkPipeline<T> pipeline = new ChunkPipeline<>(executor, maxRangesInFlight, ordered, callback);
+        long size = channel.size();
+        long windowStart = 0;
+        ByteBuffer window = map(channel, windowStart, size);
+        int i = 0;
+        while (i < window.limit() && isWhitespace(window.get(i))) {
+            i++;
+        }
+        if (i == window.limit() || window.get(i) != '[') {
+            throw new MalformedJsonException("Expected an array at offset " + i);
+        }
+        i++;
+        ElementScanner scanner = new ElementScanner();
+        boolean empty = true;
+        int rangeStart = -1;
+        int rangeEnd = -1;
+        int count = 0;
+        for (; ; ) {
+            int end = scanner.next(window, i);
+            if (end == -1) {
+                if (windowStart + window.limit() == size) {
+                    throw new EOFException("End of input at offset " + size);
+                }
+                // submit the complete elements and map the rest
+                if (count > 0) {
+                    pipeline.submit(range(window, windowStart, rangeStart, rangeEnd, count));
+                }
+                int resume = scanner.elementStart >= 0 ? scanner.elementStart : window.limit();
+                if (resume == 0) {
+                    throw new IOException("Element at offset " + windowStart + " is larger than " + windowSize + " bytes");
+                }
+                windowStart += resume;
+                window = map(channel, windowStart, size);
+                scanner.reset();
+                i = 0;
+                rangeStart = -1;
+                count = 0;
+                continue;
+            }
+            byte b = window.get(end);
+            if (b != ']' && b != ',') {
+                throw new MalformedJsonException("Unexpected '" + (char) b + "' at offset " + (windowStart + end));
+            }
+            if (scanner.elementStart < 0) {
+                if (b == ']' && empty) {
+                    break;
+                }
+                throw new MalformedJsonException("Expected a value at offset " + (windowStart + end));
+            }
+            empty = false;
+            if (rangeStart < 0) {
+                rangeStart = scanner.elementStart;
+            }
+            rangeEnd = end;
+            count++;
+            if (b == ']' || end - rangeStart >= rangeSize) {
+                pipeline.submit(range(window, windowStart, rangeStart, rangeEnd, count));
+                rangeStart = -1;
+                count = 0;
+            }
+            if (b == ']') {
+                break;
+            }
+            scanner.elementStart = -1;
+            i = end + 1;
+        }
+        pipeline.finish();
+    }
+
+    private ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+    }
+
+    private Range<T> range(ByteBuffer window, long windowStart, int start, int end, int count) {
+        ByteBuffer bytes = window.duplicate();
+        bytes.limit(end);
+        bytes.position(start);
+        return new Range<>(adapter, windowStart + start, bytes.slice(), count);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static class Range<T> extends ChunkPipeline.Chunk<T> {
+        final TypeAdapter<T> adapter;
+        final long offset;
+        final int count;
+        /**
+         * Cleared once decoded so the mapping isn't kept until the values are delivered.
+         */
+        ByteBuffer bytes;
+
+        Range(TypeAdapter<T> adapter, long offset, ByteBuffer bytes, int count) {
+            this.adapter = adapter;
+            this.offset = offset;
+            this.bytes = bytes;
+            this.count = count;
+        }
+
+        @Override
+        void decode() {
+            int read = 0;
+            int start = 0;
+            while (read < count) {
+                ByteBuffer remaining = bytes.duplicate();
+                remaining.position(start);
+                Utf8JsonReader in = new Utf8JsonReader(remaining);
+                in.resetToArray();
+                int readFromStart = 0;
+                try {
+                    for (; read < count; read++, readFromStart++) {
+                        value(in.read(adapter));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // find the element that failed and continue after it
+                    ElementScanner scanner = new ElementScanner();
+                    int end = start - 1;
+                    for (int i = 0; i <= readFromStart; i++) {
+                        scanner.elementStart = -1;
+                        end = scanner.next(bytes, end + 1);
+                        if (end == -1) {
+                            end = bytes.limit();
+                        }
+                    }
+                    error(offset + scanner.elementStart, e);
+                    read++;
+                    start = end + 1;
+                }
+            }
+            bytes = null;
+        }
+    }
+
+    /**
+     * Finds where the elements of an array end, keeping it's state so it can continue in another
+     * buffer.
+     */
+    private static class ElementScanner {
+        int depth = 1;
+        boolean inString;
+        boolean escaped;
+        /**
+         * The start of the current element, -1 if between elements.
+         */
+        int elementStart = -1;
+
+        /**
+         * Returns the index of the ',' or closing bracket after the current element, or -1 if the
+         * buffer ends first.
+         */
+        int next(ByteBuffer bytes, int i) {
+            int limit = bytes.limit();
+            for (; i < limit; i++) {
+                byte b = bytes.get(i);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                switch (b) {
+                    case ' ':
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                        break;
+                    case ',':
+                        if (depth == 1) {
+                            return i;
+                        }
+                        break;
+                    case '"':
+                        startElement(i);
+                        inString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        startElement(i);
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (--depth == 0) {
+                            return i;
+                        }
+                        break;
+                    default:
+                        startElement(i);
+                }
+            }
+            return -1;
+        }
+
+        private void startElement(int i) {
+            if (depth == 1 && elementStart < 0) {
+                elementStart = i;
+            }
+        }
+
+        void reset() {
+            depth = 1;
+            inString = false;
+            escaped = false;
+            elementStart = -1;
+        }
+    }
+}
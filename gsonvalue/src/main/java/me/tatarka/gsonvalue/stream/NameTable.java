@@ -0,0 +1,156 @@
+package me.tatarka.gsonvalue.stream;
+
+import me.tatarka.gsonvalue.internal.NameHash;
+
+import java.util.Arrays;
+
+/**
+ * A perfect hash of a fixed set of property names, used by {@link ValueJsonReader#selectName(NameTable)}
+ * to match names directly against the reader's buffer.
+ * <p>
+ * Generated adapters compute the {@link NameHash} at compile time, the table only checks it when it's
+ * created.
+ * <p>
+ * Since names usually come in the same order every time, each reader keeps track of which name
+ * followed which, starting from the {@link #declaredOrder() declared order}. The reader checks the
+ * expected name first and only hashes on a miss. The table itself is immutable and can be shared by
+ * all threads.
+ */
+public final class NameTable {
+    final int seed;
+    /**
+     * The UTF-8 bytes of the names that are safe to compare against the reader's buffer as-is, null
+     * for names that would be escaped.
+     */
+    final byte[][] plainUtf8Names;
+    private final int[] displacements;
+    private final int slotMask;
+    private final char[][] slotNames;
+    private final int[] slotIndexes;
+    private final String[] names;
+
+    /**
+     * Creates a table with a precomputed seed and displacements. If they don't produce a perfect
+     * hash of the given names, for example because they were computed by a different version, new
+     * ones are computed instead.
+     */
+    public NameTable(int seed, int[] displacements, String... names) {
+        this.names = names;
+        int slotCount = NameHash.slotCount(names.length);
+        slotMask = slotCount - 1;
+        slotNames = new char[slotCount][];
+        slotIndexes = new int[slotCount];
+        if (displacements.length != NameHash.bucketCount(names.length) || !fill(seed, displacements)) {
+            NameHash hash = NameHash.compute(names);
+            seed = hash.seed;
+            displacements = hash.displacements;
+            fill(seed, displacements);
+        }
+        this.seed = seed;
+        this.displacements = displacements;
+        plainUtf8Names = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            if (isPlain(names[i])) {
+                plainUtf8Names[i] = names[i].getBytes(Utf8JsonReader.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Creates a table for the given names, computing the perfect hash.
+     */
+    public static NameTable of(String... names) {
+        NameHash hash = NameHash.compute(names);
+        return new NameTable(hash.seed, hash.displacements, names);
+    }
+
+    /**
+     * Returns the number of names in this table.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name at the given index.
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the index of the given name, or -1 if it's not in this table.
+     */
+    public int indexOf(String name) {
+        int slot = slot(NameHash.hash(seed, name));
+        char[] slotName = slotNames[slot];
+        if (slotName == null || slotName.length != name.length()) {
+            return -1;
+        }
+        for (int i = 0; i < slotName.length; i++) {
+            if (slotName[i] != name.charAt(i)) {
+                return -1;
+            }
+        }
+        return slotIndexes[slot];
+    }
+
+    /**
+     * Returns the index of the name in the given ASCII bytes, or -1 if it's not in this table. The
+     * hash must have been computed over the bytes as chars with {@link NameHash#hash(int, char)}
+     * starting from {@link #seed}.
+     */
+    int indexOf(int h, byte[] buffer, int start, int length) {
+        int slot = slot(h);
+        char[] slotName = slotNames[slot];
+        if (slotName == null || slotName.length != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (slotName[i] != buffer[start + i]) {
+                return -1;
+            }
+        }
+        return slotIndexes[slot];
+    }
+
+    /**
+     * Returns a new array of the index of the name expected after each index in the declared order,
+     * offset by one so that the first name is expected after -1.
+     */
+    int[] declaredOrder() {
+        int[] order = new int[names.length + 1];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i < names.length ? i : 0;
+        }
+        return order;
+    }
+
+    private int slot(int h) {
+        return NameHash.slot(h, displacements, slotMask);
+    }
+
+    private boolean fill(int seed, int[] displacements) {
+        Arrays.fill(slotNames, null);
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            int slot = NameHash.slot(NameHash.hash(seed, name), displacements, slotMask);
+            if (slotNames[slot] != null) {
+                return false;
+            }
+            slotNames[slot] = name.toCharArray();
+            slotIndexes[slot] = i;
+        }
+        return true;
+    }
+
+    private static boolean isPlain(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads newline-delimited json, one value per line, decoding chunks of lines in parallel. The input
+ * is split into chunks on line boundaries, each chunk is decoded on the given executor with
+ * {@link Utf8JsonReader}, and the values are passed to a {@link ValueCallback} on the calling
+ * thread. Lines that can't be read are passed to {@link ValueCallback#onError(long, Exception)}.
+ * <pre><code>
+ * ParallelNdjsonReader&lt;Value&gt; reader = new ParallelNdjsonReader&lt;&gt;(gson.getAdapter(Value.class), executor);
+ * reader.read(in, new ValueCallback&lt;Value&gt;() {
+ *     public void onValue(Value value) { ... }
+ *     public void onError(long offset, Exception e) throws IOException { throw e; }
+ * });
+ * </code></pre>
+ * At most {@link #setMaxChunksInFlight(int)} chunks are read ahead of the callback, which bounds
+ * memory to about that many times {@link #setChunkSize(int)} plus their values. Blank lines are
+ * skipped.
+ */
+public class ParallelNdjsonReader<T> {
+
+    private final TypeAdapter<T> adapter;
+    private final Executor executor;
+    private int chunkSize = 1024 * 1024;
+    private int maxChunksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+    private boolean ordered = true;
+
+    public ParallelNdjsonReader(TypeAdapter<T> adapter, Executor executor) {
+        if (adapter == null) {
+            throw new NullPointerException("adapter == null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor == null");
+        }
+        this.adapter = adapter;
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the number of bytes in each chunk, chunks are larger if a line doesn't fit. The default
+     * is 1 MB.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize <= 0: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the number of chunks that may be read but not yet passed to the callback. The default is
+     * twice the number of processors.
+     */
+    public void setMaxChunksInFlight(int maxChunksInFlight) {
+        if (maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("maxChunksInFlight <= 0: " + maxChunksInFlight);
+        }
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * Sets if values are passed to the callback in the order of the input, the default. Otherwise
+     * they are passed in the order chunks finish decoding, though values of the same chunk stay in
+     * order.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Reads all the lines of the input, returning once every value has been passed to the callback.
+     * The input is not closed.
+     */
+    public void read(InputStream in, ValueCallback<? super T> callback) throws IOException {
+        ChunkPipeline<T> pipeline = new ChunkPipeline<>(executor, maxChunksInFlight, ordered, callback);
+        long offset = 0;
+        byte[] tail = new byte[0];
+        int tailStart = 0;
+        int tailLength = 0;
+        boolean eof = false;
+        while (!eof) {
+            byte[] bytes = new byte[Math.max(chunkSize, tailLength * 2)];
+            System.arraycopy(tail, tailStart, bytes, 0, tailLength);
+            int length = tailLength;
+            int end;
+            for (; ; ) {
+                while (length < bytes.length) {
+                    int count = in.read(bytes, length, bytes.length - length);
+                    if (count == -1) {
+                        eof = true;
+                        break;
+                    }
+                    length += count;
+                }
+                end = eof ? length : lastNewline(bytes, length) + 1;
+                if (end > 0 || eof) {
+                    break;
+                }
+                // a line longer than the chunk
+                byte[] newBytes = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, newBytes, 0, length);
+                bytes = newBytes;
+            }
+            tail = bytes;
+            tailStart = end;
+            tailLength = length - end;
+            if (end == 0) {
+                break;
+            }
+            pipeline.submit(new Lines<>(adapter, offset, bytes, end));
+            offset += end;
+        }
+        pipeline.finish();
+    }
+
+    private static int lastNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class Lines<T> extends ChunkPipeline.Chunk<T> {
+        final TypeAdapter<T> adapter;
+        final long offset;
+        final int length;
+        /**
+         * Cleared once decoded so only the values are kept until they're delivered.
+         */
+        byte[] bytes;
+
+        Lines(TypeAdapter<T> adapter, long offset, byte[] bytes, int length) {
+            this.adapter = adapter;
+            this.offset = offset;
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        @Override
+        void decode() {
+            Utf8JsonReader in = new Utf8JsonReader(bytes, 0, length);
+            int start = 0;
+            while (start < length) {
+                int end = start;
+                while (end < length && bytes[end] != '\n') {
+                    end++;
+                }
+                decodeLine(in, start, end);
+                start = end + 1;
+            }
+            bytes = null;
+        }
+
+        private void decodeLine(Utf8JsonReader in, int start, int end) {
+            try {
+                in.reset(start, end - start);
+                if (!in.hasNext()) {
+                    return;
+                }
+                T value = in.read(adapter);
+                if (in.hasNext()) {
+                    throw new MalformedJsonException("Expected one value per line at offset " + (offset + start));
+                }
+                value(value);
+            } catch (IOException | RuntimeException e) {
+                error(offset + start, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package me.tatarka.gsonvalue.stream;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A {@link ValueJsonReader} that reads UTF-8 bytes directly instead of from a
+ * {@link java.io.Reader}, so they don't have to be decoded to chars and encoded again. Names are
+ * matched against the UTF-8 bytes of a {@link NameTable} and numbers are parsed from the bytes, only
+ * strings are decoded.
+ * <pre><code>
+ * Value value = new Utf8JsonReader(bytes).read(gson.getAdapter(Value.class));
+ * </code></pre>
+ * Malformed UTF-8 in strings is replaced with U+FFFD, like {@link java.io.InputStreamReader} does.
+ */
+public class Utf8JsonReader extends ValueJsonReader {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public Utf8JsonReader(InputStream in) {
+        super(ByteSource.of(in));
+    }
+
+    public Utf8JsonReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the given range of the array without copying it. The array must not be modified while
+     * it's being read.
+     */
+    public Utf8JsonReader(byte[] bytes, int offset, int length) {
+        super(bytes, offset, length);
+    }
+
+    /**
+     * Reads the remaining bytes of the given buffer, without changing it's position. Heap buffers
+     * are read in place, direct buffers are copied in chunks.
+     */
+    public Utf8JsonReader(ByteBuffer bytes) {
+        super(bytes);
+    }
+}
@@ -0,0 +1,328 @@
+package me.tatarka.gsonvalue.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A {@link ValueJsonWriter} that encodes json as UTF-8 bytes itself instead of writing chars to a
+ * {@link java.io.Writer}. Names of generated adapters are written from their pre-encoded bytes.
+ * <pre><code>
+ * Utf8JsonWriter out = new Utf8JsonWriter();
+ * gson.toJson(value, Value.class, out);
+ * byte[] bytes = out.toByteArray();
+ * </code></pre>
+ * It can also write to a {@link ByteBuffer}, or to a blocking {@link WritableByteChannel} through
+ * pooled direct buffers.
+ * <p>
+ * The bytes are the same as writing with a {@link com.google.gson.stream.JsonWriter} to an
+ * {@link java.io.OutputStreamWriter} in UTF-8, including unpaired surrogates being written as
+ * {@code '?'}.
+ */
+public class Utf8JsonWriter extends ValueJsonWriter {
+    private static final byte[][] REPLACEMENT_BYTES = encode(REPLACEMENT_CHARS);
+    private static final byte[][] HTML_SAFE_REPLACEMENT_BYTES = encode(HTML_SAFE_REPLACEMENT_CHARS);
+    private static final byte[] U2028 = {'\\', 'u', '2', '0', '2', '8'};
+    private static final byte[] U2029 = {'\\', 'u', '2', '0', '2', '9'};
+    /**
+     * The most bytes a single char is written as, a unicode escape.
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final ByteBuffer target;
+    private final WritableByteChannel channel;
+    private final boolean growable;
+    /**
+     * The array bytes are encoded into, the target's own array when it has one.
+     */
+    private byte[] buffer;
+    private int pos;
+    /**
+     * Where the part of the buffer that can be written to ends.
+     */
+    private int end;
+    /**
+     * The offset of the target's position in the buffer when encoding into it's array, 0 otherwise.
+     */
+    private final int arrayOffset;
+
+    /**
+     * Writes to a growing array, get the result with {@link #toByteArray()}.
+     */
+    public Utf8JsonWriter() {
+        this(null, null, null, 256);
+    }
+
+    /**
+     * Writes to the given stream, the bytes are buffered until the buffer is full or
+     * {@link #flush()} is called.
+     */
+    public Utf8JsonWriter(OutputStream out) {
+        this(checkNotNull(out, "out"), null, null, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writes to the given buffer starting at it's position, and moves it's position past the bytes
+     * when {@link #flush()} is called. A buffer with an accessible array is written to in place,
+     * other buffers are written to when the writer's own buffer is full or it's flushed. A
+     * {@link java.nio.BufferOverflowException} is thrown if the bytes don't fit.
+     */
+    public Utf8JsonWriter(ByteBuffer target) {
+        this(null, checkNotNull(target, "target"), null, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writes to the given blocking channel. See {@link #Utf8JsonWriter(WritableByteChannel, int)}.
+     */
+    public Utf8JsonWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writes to the given blocking channel, for example a {@link java.nio.channels.FileChannel} or
+     * a {@link java.nio.channels.SocketChannel}. Bytes are buffered until the given number of them
+     * have been written, and are then copied to a direct buffer that's shared with other writers and
+     * written to the channel. The last bytes are only written when {@link #flush()} or
+     * {@link #close()} is called, so call one of them once you're done writing.
+     *
+     * @throws IllegalArgumentException if the channel is a non-blocking
+     *                                  {@link SelectableChannel}, which could only be written to by
+     *                                  spinning until it accepts the bytes.
+     */
+    public Utf8JsonWriter(WritableByteChannel channel, int flushThreshold) {
+        this(null, null, checkBlocking(checkNotNull(channel, "channel")), checkThreshold(flushThreshold));
+    }
+
+    private Utf8JsonWriter(OutputStream out, ByteBuffer target, WritableByteChannel channel, int bufferSize) {
+        this.out = out;
+        this.target = target;
+        this.channel = channel;
+        growable = out == null && target == null && channel == null;
+        if (target != null && target.hasArray()) {
+            buffer = target.array();
+            arrayOffset = target.arrayOffset();
+            pos = arrayOffset + target.position();
+            end = arrayOffset + target.limit();
+        } else {
+            buffer = new byte[bufferSize];
+            arrayOffset = 0;
+            end = bufferSize;
+        }
+    }
+
+    /**
+     * Returns the bytes written so far. Only supported when writing to an array.
+     */
+    public byte[] toByteArray() {
+        if (!growable) {
+            throw new IllegalStateException("Not writing to an array");
+        }
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    @Override
+    void write(char c) throws IOException {
+        require(1);
+        buffer[pos++] = (byte) c;
+    }
+
+    @Override
+    void write(String value) throws IOException {
+        encode(value, null);
+    }
+
+    @Override
+    void writeQuoted(JsonName name) throws IOException {
+        byte[] bytes = name.quotedUtf8;
+        int offset = 0;
+        while (offset < bytes.length) {
+            require(1);
+            int count = Math.min(bytes.length - offset, end - pos);
+            System.arraycopy(bytes, offset, buffer, pos, count);
+            pos += count;
+            offset += count;
+        }
+    }
+
+    @Override
+    void string(String value) throws IOException {
+        write('"');
+        encode(value, isHtmlSafe() ? HTML_SAFE_REPLACEMENT_BYTES : REPLACEMENT_BYTES);
+        write('"');
+    }
+
+    @Override
+    void flushOut() throws IOException {
+        flushBuffer();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    void closeOut() throws IOException {
+        flushBuffer();
+        if (out != null) {
+            out.close();
+        } else if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the value as UTF-8, escaping it with the given replacements if they aren't null.
+     */
+    private void encode(String value, byte[][] replacements) throws IOException {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (pos == end) {
+                require(1);
+            }
+            byte[] buffer = this.buffer;
+            int p = pos;
+            // copy ascii that doesn't need escaping until a char that does or the buffer is full
+            int stop = Math.min(length, i + end - p);
+            char c = 0;
+            while (i < stop && (c = value.charAt(i)) < 0x80
+                    && (replacements == null || replacements[c] == null)) {
+                buffer[p++] = (byte) c;
+                i++;
+            }
+            pos = p;
+            if (i == stop) {
+                continue;
+            }
+            byte[] replacement = null;
+            int size;
+            if (c < 0x80) {
+                replacement = replacements[c];
+                size = replacement.length;
+            } else if (c < 0x800) {
+                size = 2;
+            } else if (Character.isSurrogate(c)) {
+                size = Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1)) ? 4 : 1;
+            } else if (replacements != null && (c == '\u2028' || c == '\u2029')) {
+                replacement = c == '\u2028' ? U2028 : U2029;
+                size = replacement.length;
+            } else {
+                size = 3;
+            }
+            // only ask for the bytes this char needs, so a target that fits the output exactly
+            // doesn't overflow early
+            require(size);
+            buffer = this.buffer;
+            p = pos;
+            if (replacement != null) {
+                System.arraycopy(replacement, 0, buffer, p, size);
+                p += size;
+            } else if (size == 2) {
+                buffer[p++] = (byte) (0xc0 | c >> 6);
+                buffer[p++] = (byte) (0x80 | c & 0x3f);
+            } else if (size == 4) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[p++] = (byte) (0xf0 | codePoint >> 18);
+                buffer[p++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                buffer[p++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                buffer[p++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (size == 1) {
+                buffer[p++] = '?';
+            } else {
+                buffer[p++] = (byte) (0xe0 | c >> 12);
+                buffer[p++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[p++] = (byte) (0x80 | c & 0x3f);
+            }
+            pos = p;
+            i++;
+        }
+    }
+
+    /**
+     * Makes room for at least the given number of bytes, which must not be more than
+     * {@link #MAX_CHAR_BYTES}.
+     */
+    private void require(int count) throws IOException {
+        if (end - pos >= count) {
+            return;
+        }
+        if (growable) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pos + count));
+            end = buffer.length;
+        } else if (target != null && target.hasArray()) {
+            throw new BufferOverflowException();
+        } else {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out != null) {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        } else if (target != null) {
+            if (target.hasArray()) {
+                target.position(pos - arrayOffset);
+            } else {
+                target.put(buffer, 0, pos);
+                pos = 0;
+            }
+        } else if (channel != null && pos > 0) {
+            ByteBuffer direct = DirectBufferPool.take(pos);
+            try {
+                direct.put(buffer, 0, pos);
+                direct.flip();
+                while (direct.hasRemaining()) {
+                    if (channel.write(direct) == 0 && isNonBlocking(channel)) {
+                        throw new IllegalStateException("channel was made non-blocking");
+                    }
+                }
+            } finally {
+                DirectBufferPool.give(direct);
+            }
+            pos = 0;
+        }
+    }
+
+    private static byte[][] encode(String[] replacements) {
+        byte[][] result = new byte[replacements.length][];
+        for (int i = 0; i < replacements.length; i++) {
+            if (replacements[i] != null) {
+                result[i] = replacements[i].getBytes(Utf8JsonReader.UTF_8);
+            }
+        }
+        return result;
+    }
+
+    private static int checkThreshold(int flushThreshold) {
+        if (flushThreshold < MAX_CHAR_BYTES) {
+            throw new IllegalArgumentException("flushThreshold < " + MAX_CHAR_BYTES + ": " + flushThreshold);
+        }
+        return flushThreshold;
+    }
+
+    private static WritableByteChannel checkBlocking(WritableByteChannel channel) {
+        if (isNonBlocking(channel)) {
+            throw new IllegalArgumentException("channel is non-blocking");
+        }
+        return channel;
+    }
+
+    private static boolean isNonBlocking(WritableByteChannel channel) {
+        return channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking();
+    }
+
+    private static <T> T checkNotNull(T value, String name) {
+        if (value == null) {
+            throw new NullPointerException(name + " == null");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package me.tatarka.gsonvalue.stream;
+
+import java.io.IOException;
+
+/**
+ * Receives the values read by {@link ParallelNdjsonReader} and {@link MappedJsonArrayReader},
+ * always on the thread that started reading.
+ */
+public interface ValueCallback<T> {
+
+    void onValue(T value) throws IOException;
+
+    /**
+     * Called for a value that couldn't be read instead of {@link #onValue(Object)}. Throw to stop
+     * reading, or return to skip the value.
+     *
+     * @param offset the offset of the value's first byte in the input.
+     */
+    void onError(long offset, Exception e) throws IOException;
+}
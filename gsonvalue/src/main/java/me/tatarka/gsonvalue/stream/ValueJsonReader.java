@@ -0,0 +1,1219 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import me.tatarka.gsonvalue.internal.NameHash;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Reads json for generated adapters. Unlike {@link com.google.gson.stream.JsonReader} it can match
+ * property names against a {@link NameTable} without creating a string for each one.
+ * <pre><code>
+ * ValueJsonReader in = new ValueJsonReader(reader);
+ * Value value = in.read(gson.getAdapter(Value.class));
+ * </code></pre>
+ * Values that aren't read by a generated adapter are passed to their adapter through a
+ * {@link JsonReader} that reads the text of the value from this reader as it goes.
+ * <p>
+ * Only standard json is accepted, except that the input may have multiple top-level values. Like
+ * gson, numbers may be read from strings and strings may be read from numbers.
+ * <p>
+ * The json is parsed as UTF-8 bytes, chars from a {@link Reader} are encoded as they're read. See
+ * {@link Utf8JsonReader} to read bytes directly. Columns in error messages count bytes instead of
+ * chars.
+ */
+public class ValueJsonReader implements Closeable {
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    private static final int PEEKED_TRUE = 5;
+    private static final int PEEKED_FALSE = 6;
+    private static final int PEEKED_NULL = 7;
+    /**
+     * The opening quote has been consumed.
+     */
+    private static final int PEEKED_STRING = 8;
+    /**
+     * The opening quote has been consumed.
+     */
+    private static final int PEEKED_NAME = 9;
+    /**
+     * Nothing has been consumed, the number starts at {@link #pos}.
+     */
+    private static final int PEEKED_NUMBER = 10;
+    private static final int PEEKED_EOF = 11;
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+    private static final int CLOSED = 8;
+
+    private static final int NUMBER_START = 0;
+    private static final int NUMBER_SIGN = 1;
+    private static final int NUMBER_ZERO = 2;
+    private static final int NUMBER_DIGIT = 3;
+    private static final int NUMBER_DECIMAL = 4;
+    private static final int NUMBER_FRACTION_DIGIT = 5;
+    private static final int NUMBER_EXP_E = 6;
+    private static final int NUMBER_EXP_SIGN = 7;
+    private static final int NUMBER_EXP_DIGIT = 8;
+
+    /**
+     * Where the buffer is refilled from, null if the buffer is the caller's array, which must not be
+     * modified and can't be refilled.
+     */
+    private final ByteSource source;
+    private final boolean keepsSurrogates;
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+    private int lineNumber;
+    private int lineStart;
+    private char[] chars = new char[64];
+    private int peeked = PEEKED_NONE;
+    private int[] stack = new int[32];
+    private int stackSize;
+    /**
+     * The index of the last name selected in each object on the stack, -1 if there isn't one.
+     */
+    private int[] selectedNames = new int[32];
+    /**
+     * The table last used to select a name in each object on the stack, and it's name order.
+     */
+    private NameTable[] selectedTables = new NameTable[32];
+    private int[][] selectedOrders = new int[32][];
+    /**
+     * The order names were seen in for each table, see {@link #selectName(NameTable)}. Kept by the
+     * reader since tables are shared by all threads.
+     */
+    private Map<NameTable, int[]> nameOrders;
+
+    public ValueJsonReader(Reader in) {
+        this(ByteSource.of(in));
+    }
+
+    ValueJsonReader(ByteSource source) {
+        this.source = source;
+        keepsSurrogates = source.keepsSurrogates();
+        buffer = new byte[8192];
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Reads the given range of the array without copying it.
+     */
+    ValueJsonReader(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + bytes.length);
+        }
+        source = null;
+        keepsSurrogates = false;
+        buffer = bytes;
+        pos = offset;
+        limit = offset + length;
+        lineStart = offset;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Reads the remaining bytes of the given buffer without changing it's position. Heap buffers
+     * are read in place, direct buffers are copied in chunks.
+     */
+    ValueJsonReader(ByteBuffer bytes) {
+        keepsSurrogates = false;
+        if (bytes.hasArray()) {
+            source = null;
+            buffer = bytes.array();
+            pos = bytes.arrayOffset() + bytes.position();
+            limit = pos + bytes.remaining();
+            lineStart = pos;
+        } else {
+            source = ByteSource.of(bytes.duplicate());
+            buffer = new byte[8192];
+        }
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Starts reading a new document from the given range of the array this reader was created
+     * with, so one reader can be used for many small documents.
+     */
+    void reset(int offset, int length) {
+        if (source != null) {
+            throw new IllegalStateException("Not reading an array");
+        }
+        pos = offset;
+        limit = offset + length;
+        lineNumber = 0;
+        lineStart = offset;
+        resetDocument();
+    }
+
+    /**
+     * Discards the state of the current document.
+     */
+    private void resetDocument() {
+        peeked = PEEKED_NONE;
+        stackSize = 0;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Discards the state of the current document and continues as if inside an array, before it's
+     * first element. The elements can then be read without the enclosing brackets.
+     */
+    void resetToArray() {
+        resetDocument();
+        stack[0] = NONEMPTY_DOCUMENT;
+        stack[stackSize++] = EMPTY_ARRAY;
+    }
+
+    /**
+     * Reads the next value with the given adapter.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(TypeAdapter<T> adapter) throws IOException {
+        if (adapter instanceof ValueTypeAdapter) {
+            return ((ValueTypeAdapter<T>) adapter).read(this);
+        }
+        ValueTextReader text = new ValueTextReader();
+        T result = adapter.read(new JsonReader(text));
+        text.skipRest();
+        return result;
+    }
+
+    public void beginArray() throws IOException {
+        int p = peeked();
+        if (p != PEEKED_BEGIN_ARRAY) {
+            throw unexpected("BEGIN_ARRAY");
+        }
+        push(EMPTY_ARRAY);
+        peeked = PEEKED_NONE;
+    }
+
+    public void endArray() throws IOException {
+        int p = peeked();
+        if (p != PEEKED_END_ARRAY) {
+            throw unexpected("END_ARRAY");
+        }
+        stackSize--;
+        peeked = PEEKED_NONE;
+    }
+
+    public void beginObject() throws IOException {
+        int p = peeked();
+        if (p != PEEKED_BEGIN_OBJECT) {
+            throw unexpected("BEGIN_OBJECT");
+        }
+        push(EMPTY_OBJECT);
+        selectedNames[stackSize - 1] = -1;
+        peeked = PEEKED_NONE;
+    }
+
+    public void endObject() throws IOException {
+        int p = peeked();
+        if (p != PEEKED_END_OBJECT) {
+            throw unexpected("END_OBJECT");
+        }
+        stackSize--;
+        peeked = PEEKED_NONE;
+    }
+
+    /**
+     * Returns true if the current array or object has another element, or if there is another
+     * top-level value.
+     */
+    public boolean hasNext() throws IOException {
+        int p = peeked();
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_EOF;
+    }
+
+    public JsonToken peek() throws IOException {
+        switch (peeked()) {
+            case PEEKED_BEGIN_OBJECT:
+                return JsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT:
+                return JsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY:
+                return JsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY:
+                return JsonToken.END_ARRAY;
+            case PEEKED_NAME:
+                return JsonToken.NAME;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE:
+                return JsonToken.BOOLEAN;
+            case PEEKED_NULL:
+                return JsonToken.NULL;
+            case PEEKED_STRING:
+                return JsonToken.STRING;
+            case PEEKED_NUMBER:
+                return JsonToken.NUMBER;
+            case PEEKED_EOF:
+                return JsonToken.END_DOCUMENT;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    public String nextName() throws IOException {
+        int p = peeked();
+        if (p != PEEKED_NAME) {
+            throw unexpected("a name");
+        }
+        String result = nextQuotedValue();
+        peeked = PEEKED_NONE;
+        return result;
+    }
+
+    /**
+     * Consumes the next name and returns it's index in the given table, or -1 if it's not in the
+     * table. Names without escapes are matched directly against the buffer.
+     * <p>
+     * The name that followed the last one selected in this object the last time this reader saw it
+     * is checked first, which is usually enough to find it with a single comparison. Until then the
+     * declared order is expected.
+     */
+    public int selectName(NameTable table) throws IOException {
+        int p = peeked();
+        if (p != PEEKED_NAME) {
+            throw unexpected("a name");
+        }
+        int top = stackSize - 1;
+        int[] order = selectedOrders[top];
+        if (selectedTables[top] != table) {
+            order = nameOrder(table);
+            selectedTables[top] = table;
+            selectedOrders[top] = order;
+        }
+        int previous = selectedNames[top];
+        int expected = order[previous + 1];
+        if (expected < table.size() && matchesPlainName(table, expected)) {
+            selectedNames[top] = expected;
+            peeked = PEEKED_NONE;
+            return expected;
+        }
+        int index = hashName(table);
+        if (index != -1) {
+            order[previous + 1] = index;
+            selectedNames[top] = index;
+        }
+        peeked = PEEKED_NONE;
+        return index;
+    }
+
+    /**
+     * Returns the order names of the given table were seen in by this reader.
+     */
+    int[] nameOrder(NameTable table) {
+        if (nameOrders == null) {
+            nameOrders = new IdentityHashMap<>();
+        }
+        int[] order = nameOrders.get(table);
+        if (order == null) {
+            order = table.declaredOrder();
+            nameOrders.put(table, order);
+        }
+        return order;
+    }
+
+    /**
+     * Consumes the next name if it's exactly the plain name at the given index of the table.
+     */
+    private boolean matchesPlainName(NameTable table, int index) throws IOException {
+        byte[] name = table.plainUtf8Names[index];
+        if (name == null) {
+            return false;
+        }
+        int length = name.length;
+        if (pos + length >= limit && !fillBuffer(length + 1)) {
+            return false;
+        }
+        if (buffer[pos + length] != '"') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[pos + i] != name[i]) {
+                return false;
+            }
+        }
+        pos += length + 1;
+        return true;
+    }
+
+    /**
+     * Consumes the next name and returns it's index in the given table, or -1 if it's not in the
+     * table.
+     */
+    private int hashName(NameTable table) throws IOException {
+        int h = table.seed;
+        int i = pos;
+        while (true) {
+            if (i == limit) {
+                int length = i - pos;
+                if (!fillBuffer(length + 1)) {
+                    throw syntaxError("Unterminated string");
+                }
+                i = pos + length;
+            }
+            byte b = buffer[i];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\' || b < 0) {
+                // Escaped or non-ascii, the table hashes chars so decode it first.
+                return table.indexOf(nextQuotedValue());
+            }
+            h = NameHash.hash(h, (char) b);
+            i++;
+        }
+        int index = table.indexOf(h, buffer, pos, i - pos);
+        pos = i + 1;
+        return index;
+    }
+
+    /**
+     * Returns the next string, or the literal text of the next number.
+     */
+    public String nextString() throws IOException {
+        int p = peeked();
+        String result;
+        if (p == PEEKED_STRING) {
+            result = nextQuotedValue();
+        } else if (p == PEEKED_NUMBER) {
+            result = nextNumberString();
+        } else {
+            throw unexpected("a string");
+        }
+        peeked = PEEKED_NONE;
+        return result;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int p = peeked();
+        if (p == PEEKED_TRUE) {
+            peeked = PEEKED_NONE;
+            return true;
+        } else if (p == PEEKED_FALSE) {
+            peeked = PEEKED_NONE;
+            return false;
+        }
+        throw unexpected("a boolean");
+    }
+
+    public void nextNull() throws IOException {
+        int p = peeked();
+        if (p != PEEKED_NULL) {
+            throw unexpected("null");
+        }
+        peeked = PEEKED_NONE;
+    }
+
+    /**
+     * Returns the next number, or the number in the next string. Like a strict
+     * {@link com.google.gson.stream.JsonReader}, NaN and infinities aren't accepted.
+     *
+     * @throws NumberFormatException if the next value can't be parsed as a double.
+     */
+    public double nextDouble() throws IOException {
+        int p = peeked();
+        double result;
+        if (p == PEEKED_NUMBER) {
+            result = nextNumberDouble();
+        } else if (p == PEEKED_STRING) {
+            result = Double.parseDouble(nextQuotedValue());
+        } else {
+            throw unexpected("a double");
+        }
+        if (Double.isNaN(result) || Double.isInfinite(result)) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + locationString());
+        }
+        peeked = PEEKED_NONE;
+        return result;
+    }
+
+    /**
+     * Returns the next number, or the number in the next string.
+     *
+     * @throws NumberFormatException if the next value can't be parsed as a long.
+     */
+    public long nextLong() throws IOException {
+        int p = peeked();
+        long result;
+        if (p == PEEKED_NUMBER) {
+            result = nextNumberLong();
+        } else if (p == PEEKED_STRING) {
+            result = parseLong(nextQuotedValue());
+        } else {
+            throw unexpected("a long");
+        }
+        peeked = PEEKED_NONE;
+        return result;
+    }
+
+    /**
+     * Returns the next number, or the number in the next string.
+     *
+     * @throws NumberFormatException if the next value can't be parsed as an int.
+     */
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        int result = (int) value;
+        if (result != value) {
+            throw new NumberFormatException("Expected an int but was " + value + locationString());
+        }
+        return result;
+    }
+
+    /**
+     * Skips the next value, including all nested values of an array or object. If the next token
+     * is a name, only the name is skipped.
+     */
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            int p = peeked();
+            switch (p) {
+                case PEEKED_BEGIN_ARRAY:
+                    push(EMPTY_ARRAY);
+                    count++;
+                    break;
+                case PEEKED_BEGIN_OBJECT:
+                    push(EMPTY_OBJECT);
+                    count++;
+                    break;
+                case PEEKED_END_ARRAY:
+                case PEEKED_END_OBJECT:
+                    stackSize--;
+                    count--;
+                    break;
+                case PEEKED_NAME:
+                case PEEKED_STRING:
+                    skipQuotedValue();
+                    break;
+                case PEEKED_NUMBER:
+                    skipNumber();
+                    break;
+                case PEEKED_EOF:
+                    throw new EOFException("End of input" + locationString());
+            }
+            peeked = PEEKED_NONE;
+        } while (count > 0);
+    }
+
+    /**
+     * Reads the next value as a tree.
+     */
+    public JsonElement nextJsonElement() throws IOException {
+        return read(JsonElementAdapter.INSTANCE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = PEEKED_NONE;
+        stack[0] = CLOSED;
+        stackSize = 1;
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + locationString();
+    }
+
+    private int peeked() throws IOException {
+        int p = peeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        return p;
+    }
+
+    private int doPeek() throws IOException {
+        int peekStack = stack[stackSize - 1];
+        int c;
+        switch (peekStack) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace(true);
+                if (c == ']') {
+                    return peeked = PEEKED_END_ARRAY;
+                } else if (c != ',') {
+                    throw syntaxError("Unterminated array");
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                stack[stackSize - 1] = DANGLING_NAME;
+                c = nextNonWhitespace(true);
+                if (peekStack == NONEMPTY_OBJECT) {
+                    if (c == '}') {
+                        return peeked = PEEKED_END_OBJECT;
+                    } else if (c != ',') {
+                        throw syntaxError("Unterminated object");
+                    }
+                    c = nextNonWhitespace(true);
+                } else if (c == '}') {
+                    return peeked = PEEKED_END_OBJECT;
+                }
+                if (c == '"') {
+                    return peeked = PEEKED_NAME;
+                }
+                throw syntaxError("Expected name");
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace(true) != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                break;
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                if (nextNonWhitespace(false) == -1) {
+                    return peeked = PEEKED_EOF;
+                }
+                pos--;
+                break;
+            case CLOSED:
+                throw new IllegalStateException("JsonReader is closed");
+        }
+
+        c = nextNonWhitespace(true);
+        switch (c) {
+            case ']':
+                if (peekStack == EMPTY_ARRAY) {
+                    return peeked = PEEKED_END_ARRAY;
+                }
+                throw syntaxError("Unexpected value");
+            case '"':
+                return peeked = PEEKED_STRING;
+            case '[':
+                return peeked = PEEKED_BEGIN_ARRAY;
+            case '{':
+                return peeked = PEEKED_BEGIN_OBJECT;
+            case 't':
+                pos--;
+                return peeked = peekKeyword("true", PEEKED_TRUE);
+            case 'f':
+                pos--;
+                return peeked = peekKeyword("false", PEEKED_FALSE);
+            case 'n':
+                pos--;
+                return peeked = peekKeyword("null", PEEKED_NULL);
+            default:
+                pos--;
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return peeked = PEEKED_NUMBER;
+                }
+                throw syntaxError("Expected value");
+        }
+    }
+
+    /**
+     * Consumes the given keyword, the first char of which has already been peeked, and returns
+     * {@code peeking}.
+     */
+    private int peekKeyword(String keyword, int peeking) throws IOException {
+        int length = keyword.length();
+        if (pos + length > limit && !fillBuffer(length)) {
+            throw syntaxError("Expected value");
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[pos + i] != keyword.charAt(i)) {
+                throw syntaxError("Expected value");
+            }
+        }
+        if ((pos + length < limit || fillBuffer(length + 1)) && isLiteral(buffer[pos + length])) {
+            throw syntaxError("Expected value");
+        }
+        pos += length;
+        return peeking;
+    }
+
+    /**
+     * Consumes the number starting at {@link #pos} and returns it's literal text.
+     */
+    private String nextNumberString() throws IOException {
+        int length = numberLength();
+        String result = ascii(pos, length);
+        pos += length;
+        return result;
+    }
+
+    /**
+     * Consumes the number starting at {@link #pos}.
+     */
+    private double nextNumberDouble() throws IOException {
+        int length = numberLength();
+        double result;
+        if (isSmallInteger(pos, length)) {
+            long value = parseSmallInteger(pos, length);
+            // Keep the sign of -0.
+            result = value == 0 && buffer[pos] == '-' ? -0.0 : value;
+        } else {
+            result = Double.parseDouble(ascii(pos, length));
+        }
+        pos += length;
+        return result;
+    }
+
+    /**
+     * Consumes the number starting at {@link #pos}.
+     */
+    private long nextNumberLong() throws IOException {
+        int length = numberLength();
+        long result;
+        if (isSmallInteger(pos, length)) {
+            result = parseSmallInteger(pos, length);
+        } else {
+            result = parseLong(ascii(pos, length));
+        }
+        pos += length;
+        return result;
+    }
+
+    private void skipNumber() throws IOException {
+        // Not pos += numberLength(), it may move pos when it refills the buffer.
+        int length = numberLength();
+        pos += length;
+    }
+
+    /**
+     * Returns the length of the number starting at {@link #pos}, making sure all of it is in the
+     * buffer. Like {@link com.google.gson.stream.JsonReader}, it must follow the json grammar, so
+     * leading zeros, repeated signs and a missing fraction or exponent fail.
+     */
+    private int numberLength() throws IOException {
+        int i = pos;
+        int state = NUMBER_START;
+        while (true) {
+            if (i == limit) {
+                int length = i - pos;
+                if (!fillBuffer(length + 1)) {
+                    break;
+                }
+                i = pos + length;
+            }
+            byte c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                if (state == NUMBER_START || state == NUMBER_SIGN) {
+                    state = c == '0' ? NUMBER_ZERO : NUMBER_DIGIT;
+                } else if (state == NUMBER_ZERO) {
+                    throw syntaxError("Malformed number");
+                } else if (state == NUMBER_DECIMAL) {
+                    state = NUMBER_FRACTION_DIGIT;
+                } else if (state == NUMBER_EXP_E || state == NUMBER_EXP_SIGN) {
+                    state = NUMBER_EXP_DIGIT;
+                }
+            } else if (c == '-' && state == NUMBER_START) {
+                state = NUMBER_SIGN;
+            } else if ((c == '-' || c == '+') && state == NUMBER_EXP_E) {
+                state = NUMBER_EXP_SIGN;
+            } else if (c == '.' && (state == NUMBER_ZERO || state == NUMBER_DIGIT)) {
+                state = NUMBER_DECIMAL;
+            } else if ((c == 'e' || c == 'E') && (state == NUMBER_ZERO || state == NUMBER_DIGIT || state == NUMBER_FRACTION_DIGIT)) {
+                state = NUMBER_EXP_E;
+            } else if (isLiteral(c) || c == '-' || c == '+' || c == '.') {
+                throw syntaxError("Malformed number");
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (state != NUMBER_ZERO && state != NUMBER_DIGIT && state != NUMBER_FRACTION_DIGIT && state != NUMBER_EXP_DIGIT) {
+            throw syntaxError("Malformed number");
+        }
+        return i - pos;
+    }
+
+    /**
+     * Returns true if the given bytes are an integer that fits in a long without overflow checks.
+     */
+    private boolean isSmallInteger(int start, int length) {
+        int i = start;
+        int end = start + length;
+        if (i < end && buffer[i] == '-') {
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return false;
+        }
+        for (; i < end; i++) {
+            byte c = buffer[i];
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseSmallInteger(int start, int length) {
+        int i = start;
+        int end = start + length;
+        boolean negative = buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            result = result * 10 + (buffer[i] - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    private long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            double asDouble = Double.parseDouble(value);
+            long result = (long) asDouble;
+            if (result != asDouble) {
+                throw new NumberFormatException("Expected a long but was " + value + locationString());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the given bytes, which are known to be ascii, as a string.
+     */
+    private String ascii(int start, int length) {
+        char[] chars = ensureChars(0, length);
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buffer[start + i];
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Consumes the rest of the string whose opening quote has been consumed, and returns it
+     * unescaped.
+     */
+    private String nextQuotedValue() throws IOException {
+        int length = 0;
+        while (true) {
+            int p = pos;
+            int l = limit;
+            // Each byte decodes to at most one char.
+            char[] chars = ensureChars(length, l - p);
+            while (p < l) {
+                byte b = buffer[p++];
+                if (b >= 0) {
+                    if (b == '"') {
+                        pos = p;
+                        return new String(chars, 0, length);
+                    } else if (b == '\\') {
+                        pos = p;
+                        char c = readEscapeCharacter();
+                        p = pos;
+                        l = limit;
+                        chars = ensureChars(length, l - p + 1);
+                        chars[length++] = c;
+                        continue;
+                    } else if (b == '\n') {
+                        lineNumber++;
+                        lineStart = p;
+                    }
+                    chars[length++] = (char) b;
+                    continue;
+                }
+                pos = p - 1;
+                chars = ensureChars(length, 2);
+                length = decodeUtf8(chars, length);
+                p = pos;
+                l = limit;
+                chars = ensureChars(length, l - p);
+            }
+            pos = p;
+            if (!fillBuffer(1)) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Decodes the UTF-8 sequence starting with the non-ascii byte at {@link #pos} into the chars,
+     * which must have room for two after {@code length}, and returns the new length.
+     */
+    private int decodeUtf8(char[] chars, int length) throws IOException {
+        int lead = buffer[pos] & 0xff;
+        int continuations = lead >= 0xf0 ? 3 : lead >= 0xe0 ? 2 : 1;
+        if (pos + continuations >= limit && !fillBuffer(continuations + 1)) {
+            // Truncated by the end of the input.
+            pos++;
+            chars[length++] = REPLACEMENT;
+            return length;
+        }
+        int p = pos + 1;
+        if (lead >= 0xc2 && lead <= 0xdf) {
+            int b1 = buffer[p];
+            if ((b1 & 0xc0) == 0x80) {
+                chars[length++] = (char) (((lead & 0x1f) << 6) | (b1 & 0x3f));
+                pos = p + 1;
+                return length;
+            }
+        } else if (lead >= 0xe0 && lead <= 0xef) {
+            int b1 = buffer[p];
+            int b2 = buffer[p + 1];
+            // Not overlong.
+            if ((b1 & 0xc0) == 0x80 && (b2 & 0xc0) == 0x80 && !(lead == 0xe0 && (b1 & 0xff) < 0xa0)) {
+                char c = (char) (((lead & 0x0f) << 12) | ((b1 & 0x3f) << 6) | (b2 & 0x3f));
+                // An encoded surrogate is replaced as a whole, unless it came from a Reader.
+                chars[length++] = Character.isSurrogate(c) && !keepsSurrogates ? REPLACEMENT : c;
+                pos = p + 2;
+                return length;
+            }
+        } else if (lead >= 0xf0 && lead <= 0xf4) {
+            int b1 = buffer[p];
+            int b2 = buffer[p + 1];
+            int b3 = buffer[p + 2];
+            if ((b1 & 0xc0) == 0x80 && (b2 & 0xc0) == 0x80 && (b3 & 0xc0) == 0x80) {
+                int codePoint = ((lead & 0x07) << 18) | ((b1 & 0x3f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f);
+                if (codePoint >= 0x10000 && codePoint <= 0x10ffff) {
+                    chars[length++] = Character.highSurrogate(codePoint);
+                    chars[length++] = Character.lowSurrogate(codePoint);
+                    pos = p + 3;
+                    return length;
+                }
+            }
+        }
+        // Replace just the lead byte, the rest are replaced as they're reached.
+        pos = p;
+        chars[length++] = REPLACEMENT;
+        return length;
+    }
+
+    /**
+     * Makes sure the chars have room for {@code more} after {@code length}.
+     */
+    private char[] ensureChars(int length, int more) {
+        if (length + more > chars.length) {
+            char[] newChars = new char[Math.max(chars.length * 2, length + more)];
+            System.arraycopy(chars, 0, newChars, 0, length);
+            chars = newChars;
+        }
+        return chars;
+    }
+
+    private void skipQuotedValue() throws IOException {
+        while (true) {
+            int p = pos;
+            int l = limit;
+            while (p < l) {
+                byte b = buffer[p++];
+                if (b == '"') {
+                    pos = p;
+                    return;
+                } else if (b == '\\') {
+                    pos = p;
+                    readEscapeCharacter();
+                    p = pos;
+                    l = limit;
+                } else if (b == '\n') {
+                    lineNumber++;
+                    lineStart = p;
+                }
+            }
+            pos = p;
+            if (!fillBuffer(1)) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private char readEscapeCharacter() throws IOException {
+        if (pos == limit && !fillBuffer(1)) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        byte escaped = buffer[pos++];
+        switch (escaped) {
+            case 'u':
+                if (pos + 4 > limit && !fillBuffer(4)) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+                char result = 0;
+                for (int i = pos, end = i + 4; i < end; i++) {
+                    byte b = buffer[i];
+                    result <<= 4;
+                    if (b >= '0' && b <= '9') {
+                        result += (b - '0');
+                    } else if (b >= 'a' && b <= 'f') {
+                        result += (b - 'a' + 10);
+                    } else if (b >= 'A' && b <= 'F') {
+                        result += (b - 'A' + 10);
+                    } else {
+                        throw syntaxError("Malformed unicode escape");
+                    }
+                }
+                pos += 4;
+                return result;
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case '"':
+            case '\\':
+            case '/':
+                return (char) escaped;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    /**
+     * Consumes and returns the next byte that isn't whitespace, or -1 if the input ends first and
+     * {@code throwOnEof} is false.
+     */
+    private int nextNonWhitespace(boolean throwOnEof) throws IOException {
+        int p = pos;
+        int l = limit;
+        while (true) {
+            if (p == l) {
+                pos = p;
+                if (!fillBuffer(1)) {
+                    break;
+                }
+                p = pos;
+                l = limit;
+            }
+            byte b = buffer[p++];
+            if (b == '\n') {
+                lineNumber++;
+                lineStart = p;
+            } else if (b != ' ' && b != '\r' && b != '\t') {
+                pos = p;
+                return b & 0xff;
+            }
+        }
+        if (throwOnEof) {
+            throw new EOFException("End of input" + locationString());
+        }
+        return -1;
+    }
+
+    /**
+     * Makes sure there are at least {@code minimum} bytes in the buffer from {@link #pos}. The
+     * caller's array is only checked, otherwise the remaining bytes are moved to the start of the
+     * buffer and it's refilled. Returns false if the input ends first.
+     */
+    private boolean fillBuffer(int minimum) throws IOException {
+        if (source == null) {
+            return limit - pos >= minimum;
+        }
+        lineStart -= pos;
+        if (limit != pos) {
+            limit -= pos;
+            System.arraycopy(buffer, pos, buffer, 0, limit);
+        } else {
+            limit = 0;
+        }
+        pos = 0;
+        if (minimum > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(buffer.length * 2, minimum)];
+            System.arraycopy(buffer, 0, newBuffer, 0, limit);
+            buffer = newBuffer;
+        }
+        int total;
+        while ((total = source.read(buffer, limit, buffer.length - limit)) != -1) {
+            limit += total;
+            if (limit >= minimum) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void push(int newTop) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+            int[] newSelectedNames = new int[stackSize * 2];
+            System.arraycopy(selectedNames, 0, newSelectedNames, 0, stackSize);
+            selectedNames = newSelectedNames;
+            NameTable[] newSelectedTables = new NameTable[stackSize * 2];
+            System.arraycopy(selectedTables, 0, newSelectedTables, 0, stackSize);
+            selectedTables = newSelectedTables;
+            int[][] newSelectedOrders = new int[stackSize * 2][];
+            System.arraycopy(selectedOrders, 0, newSelectedOrders, 0, stackSize);
+            selectedOrders = newSelectedOrders;
+        }
+        stack[stackSize++] = newTop;
+    }
+
+    private static boolean isLiteral(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private IllegalStateException unexpected(String expected) throws IOException {
+        return new IllegalStateException("Expected " + expected + " but was " + peek() + locationString());
+    }
+
+    private IOException syntaxError(String message) {
+        return new MalformedJsonException(message + locationString());
+    }
+
+    private String locationString() {
+        return " at line " + (lineNumber + 1) + " column " + (pos - lineStart + 1);
+    }
+
+    /**
+     * Streams the text of the next value from the buffer, so that adapters that only read from a
+     * {@link JsonReader} can read it without it being read into a tree first. The value is consumed
+     * from this reader as it's read.
+     */
+    private class ValueTextReader extends Reader {
+        /**
+         * The part of the value that was consumed when it was peeked.
+         */
+        private String prefix;
+        private int prefixPos;
+        private int depth;
+        private boolean inString;
+        private boolean escaped;
+        private boolean done;
+        private final char[] decoded = new char[2];
+        private int decodedPos;
+        private int decodedLength;
+
+        ValueTextReader() throws IOException {
+            switch (peeked()) {
+                case PEEKED_BEGIN_OBJECT:
+                    prefix = "{";
+                    depth = 1;
+                    break;
+                case PEEKED_BEGIN_ARRAY:
+                    prefix = "[";
+                    depth = 1;
+                    break;
+                case PEEKED_STRING:
+                    prefix = "\"";
+                    inString = true;
+                    break;
+                case PEEKED_TRUE:
+                    prefix = "true";
+                    done = true;
+                    break;
+                case PEEKED_FALSE:
+                    prefix = "false";
+                    done = true;
+                    break;
+                case PEEKED_NULL:
+                    prefix = "null";
+                    done = true;
+                    break;
+                case PEEKED_NUMBER:
+                    prefix = "";
+                    break;
+                default:
+                    throw unexpected("a value");
+            }
+            peeked = PEEKED_NONE;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int n = 0;
+            while (n < len && prefixPos < prefix.length()) {
+                cbuf[off + n++] = prefix.charAt(prefixPos++);
+            }
+            while (n < len && decodedPos < decodedLength) {
+                cbuf[off + n++] = decoded[decodedPos++];
+            }
+            while (n < len && !done) {
+                if (pos == limit && !fillBuffer(1)) {
+                    // Let the JsonReader report where the value ends early.
+                    done = true;
+                    break;
+                }
+                byte b = buffer[pos];
+                if (b < 0) {
+                    escaped = false;
+                    decodedLength = decodeUtf8(decoded, 0);
+                    decodedPos = 0;
+                    while (n < len && decodedPos < decodedLength) {
+                        cbuf[off + n++] = decoded[decodedPos++];
+                    }
+                    continue;
+                }
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                        done = depth == 0;
+                    }
+                } else if (depth == 0) {
+                    // A top-level number, which ends at the first char that can't be part of it.
+                    if (!isLiteral(b) && b != '-' && b != '+' && b != '.') {
+                        done = true;
+                        break;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    done = --depth == 0;
+                }
+                if (b == '\n') {
+                    lineNumber++;
+                    lineStart = pos + 1;
+                }
+                pos++;
+                cbuf[off + n++] = (char) b;
+            }
+            return n == 0 && len > 0 ? -1 : n;
+        }
+
+        /**
+         * Consumes whatever is left of the value, in case the adapter didn't read all of it.
+         */
+        void skipRest() throws IOException {
+            char[] skipped = new char[64];
+            while (!done) {
+                read(skipped, 0, skipped.length);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class JsonElementAdapter {
+        static final TypeAdapter<JsonElement> INSTANCE = new Gson().getAdapter(JsonElement.class);
+    }
+}
@@ -0,0 +1,489 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+
+/**
+ * A {@link JsonWriter} that writes the names of generated adapters without escaping them at
+ * runtime. It produces the same output as {@link JsonWriter} and can be used anywhere one can, for
+ * example:
+ * <pre><code>
+ * gson.toJson(value, Value.class, new ValueJsonWriter(writer));
+ * </code></pre>
+ * An indent set with {@link #setIndent(String)} is used from the next top-level value on.
+ */
+public class ValueJsonWriter extends JsonWriter {
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    /**
+     * The indent {@link JsonWriter} keeps for {@link #setIndent(String)}. It has no getter and the
+     * setter is final, so it's read from the field at the start of each top-level value. Null if the
+     * field can't be read, in which case nothing is indented.
+     */
+    private static final Field INDENT = indentField();
+
+    static final String[] REPLACEMENT_CHARS;
+    static final String[] HTML_SAFE_REPLACEMENT_CHARS;
+
+    static {
+        REPLACEMENT_CHARS = new String[128];
+        for (int i = 0; i <= 0x1f; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        HTML_SAFE_REPLACEMENT_CHARS = REPLACEMENT_CHARS.clone();
+        HTML_SAFE_REPLACEMENT_CHARS['<'] = "\\u003c";
+        HTML_SAFE_REPLACEMENT_CHARS['>'] = "\\u003e";
+        HTML_SAFE_REPLACEMENT_CHARS['&'] = "\\u0026";
+        HTML_SAFE_REPLACEMENT_CHARS['='] = "\\u003d";
+        HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private final Writer out;
+    private int[] stack = new int[32];
+    private int stackSize;
+    private String indent;
+    private String deferredName;
+    private JsonName deferredJsonName;
+
+    public ValueJsonWriter(Writer out) {
+        super(UnsupportedWriter.INSTANCE);
+        this.out = checkNotNull(out);
+        push(EMPTY_DOCUMENT);
+    }
+
+    /**
+     * For subclasses that write somewhere other than a {@link Writer}, they must override the
+     * methods that write to it.
+     */
+    ValueJsonWriter() {
+        super(UnsupportedWriter.INSTANCE);
+        this.out = null;
+        push(EMPTY_DOCUMENT);
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        return open(EMPTY_ARRAY, '[');
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        return open(EMPTY_OBJECT, '{');
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+
+    private JsonWriter open(int empty, char bracket) throws IOException {
+        beforeValue();
+        push(empty);
+        write(bracket);
+        return this;
+    }
+
+    private JsonWriter close(int empty, int nonempty, char bracket) throws IOException {
+        int context = peek();
+        if (context != nonempty && context != empty) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        if (hasDeferredName()) {
+            throw new IllegalStateException("Dangling name: " + deferredName());
+        }
+        stackSize--;
+        if (context == nonempty) {
+            newline();
+        }
+        write(bracket);
+        return this;
+    }
+
+    private void push(int newTop) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = newTop;
+    }
+
+    private int peek() {
+        if (stackSize == 0) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        return stack[stackSize - 1];
+    }
+
+    private void replaceTop(int topOfStack) {
+        stack[stackSize - 1] = topOfStack;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        checkCanWriteName();
+        deferredName = name;
+        return this;
+    }
+
+    /**
+     * Encodes the property name, writing it's pre-escaped form as-is.
+     */
+    public JsonWriter name(JsonName name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        checkCanWriteName();
+        deferredJsonName = name;
+        return this;
+    }
+
+    private void checkCanWriteName() {
+        if (hasDeferredName()) {
+            throw new IllegalStateException();
+        }
+        if (stackSize == 0) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+    }
+
+    private boolean hasDeferredName() {
+        return deferredName != null || deferredJsonName != null;
+    }
+
+    private String deferredName() {
+        return deferredName != null ? deferredName : deferredJsonName.name;
+    }
+
+    private void clearDeferredName() {
+        deferredName = null;
+        deferredJsonName = null;
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (deferredJsonName != null) {
+            beforeName();
+            if (deferredJsonName.htmlSafe || !isHtmlSafe()) {
+                writeQuoted(deferredJsonName);
+            } else {
+                string(deferredJsonName.name);
+            }
+            deferredJsonName = null;
+        } else if (deferredName != null) {
+            beforeName();
+            string(deferredName);
+            deferredName = null;
+        }
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        beforeValue();
+        write(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (hasDeferredName()) {
+            if (getSerializeNulls()) {
+                writeDeferredName();
+            } else {
+                // skip the name and the value
+                clearDeferredName();
+                return this;
+            }
+        }
+        beforeValue();
+        write("null");
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        write(value ? "true" : "false");
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            if (!isLenient()) {
+                throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+            }
+        }
+        writeDeferredName();
+        beforeValue();
+        write(Double.toString(value));
+        return this;
+    }
+
+    /**
+     * Overrides {@code JsonWriter.value(float)} in newer versions of gson.
+     */
+    public JsonWriter value(float value) throws IOException {
+        writeDeferredName();
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            if (!isLenient()) {
+                throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+            }
+        }
+        beforeValue();
+        write(Float.toString(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        write(Long.toString(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        String string = value.toString();
+        if (!isLenient()
+                && (string.equals("-Infinity") || string.equals("Infinity") || string.equals("NaN"))) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        beforeValue();
+        write(string);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (stackSize == 0) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        flushOut();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeOut();
+
+        int size = stackSize;
+        if (size > 1 || size == 1 && stack[size - 1] != NONEMPTY_DOCUMENT) {
+            throw new IOException("Incomplete document");
+        }
+        stackSize = 0;
+    }
+
+    void write(char c) throws IOException {
+        out.write(c);
+    }
+
+    void write(String value) throws IOException {
+        out.write(value);
+    }
+
+    void writeQuoted(JsonName name) throws IOException {
+        out.write(name.quoted);
+    }
+
+    void flushOut() throws IOException {
+        out.flush();
+    }
+
+    void closeOut() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Writes the value quoted and escaped, html characters are escaped if {@link #isHtmlSafe()}.
+     */
+    void string(String value) throws IOException {
+        String[] replacements = isHtmlSafe() ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+        out.write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = replacements[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                out.write(value, last, i - last);
+            }
+            out.write(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            out.write(value, last, length - last);
+        }
+        out.write('"');
+    }
+
+    private void newline() throws IOException {
+        if (indent == null) {
+            return;
+        }
+        write('\n');
+        for (int i = 1; i < stackSize; i++) {
+            write(indent);
+        }
+    }
+
+    private void beforeName() throws IOException {
+        int context = peek();
+        if (context == NONEMPTY_OBJECT) {
+            write(',');
+        } else if (context != EMPTY_OBJECT) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        newline();
+        replaceTop(DANGLING_NAME);
+    }
+
+    private void beforeValue() throws IOException {
+        int context = peek();
+        switch (context) {
+            case EMPTY_DOCUMENT:
+            case NONEMPTY_DOCUMENT:
+                if (context == NONEMPTY_DOCUMENT && !isLenient()) {
+                    throw new IllegalStateException("JSON must have only one top-level value.");
+                }
+                indent = indent();
+                replaceTop(NONEMPTY_DOCUMENT);
+                break;
+            case EMPTY_ARRAY:
+                replaceTop(NONEMPTY_ARRAY);
+                newline();
+                break;
+            case NONEMPTY_ARRAY:
+                write(',');
+                newline();
+                break;
+            case DANGLING_NAME:
+                if (indent != null) {
+                    write(": ");
+                } else {
+                    write(':');
+                }
+                replaceTop(NONEMPTY_OBJECT);
+                break;
+            default:
+                throw new IllegalStateException("Nesting problem.");
+        }
+    }
+
+    /**
+     * Returns the indent set with {@link #setIndent(String)}, or null if there isn't one.
+     */
+    private String indent() {
+        if (INDENT == null) {
+            return null;
+        }
+        try {
+            return (String) INDENT.get(this);
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Field indentField() {
+        try {
+            Field field = JsonWriter.class.getDeclaredField("indent");
+            field.setAccessible(true);
+            return field.getType() == String.class ? field : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Writer checkNotNull(Writer out) {
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        return out;
+    }
+
+    /**
+     * The writer {@link JsonWriter} writes to. Everything is written by this class, so it fails if a
+     * {@link JsonWriter} method that isn't overridden tries to write.
+     */
+    private static final class UnsupportedWriter extends Writer {
+        static final UnsupportedWriter INSTANCE = new UnsupportedWriter();
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            throw new UnsupportedOperationException("This JsonWriter method isn't supported by ValueJsonWriter");
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+
+/**
+ * The base class of generated adapters, adding a way to read from a {@link ValueJsonReader}.
+ */
+public abstract class ValueTypeAdapter<T> extends TypeAdapter<T> {
+
+    /**
+     * Reads one value from the given reader, returning the converted java object. The returned
+     * value may be null.
+     */
+    public abstract T read(ValueJsonReader in) throws IOException;
+}
@@ -0,0 +1,141 @@
+package me.tatarka.gsonvalue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import me.tatarka.gsonvalue.model.deserialize.ConstructorArg;
+import me.tatarka.gsonvalue.model.serialize.FlatFields;
+import me.tatarka.gsonvalue.stream.ValueJsonReader;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(JUnit4.class)
+public class GsonValueAllocationTest {
+    private static final int ITERATIONS = 10000;
+
+    com.sun.management.ThreadMXBean threadBean;
+
+    @Before
+    public void setup() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void writeAllocatesNoMoreThanJsonWriter() throws IOException {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ValueTypeAdapterFactory()).create();
+        final TypeAdapter<FlatFields> adapter = gson.getAdapter(FlatFields.class);
+        // Values outside of the boxing caches so that boxing them would allocate.
+        final FlatFields value = new FlatFields(true, 100000, 1L << 40, 0.5, "value");
+
+        Write generated = new Write() {
+            @Override
+            public void write(JsonWriter out) throws IOException {
+                adapter.write(out, value);
+            }
+        };
+        Write manual = new Write() {
+            @Override
+            public void write(JsonWriter out) throws IOException {
+                out.beginObject();
+                out.name("booleanArg").value(value.booleanArg);
+                out.name("intArg").value(value.intArg);
+                out.name("longArg").value(value.longArg);
+                out.name("doubleArg").value(value.doubleArg);
+                out.name("stringArg").value(value.stringArg);
+                out.endObject();
+            }
+        };
+
+        // Warm up so that both are measured after being compiled.
+        allocatedBytes(generated);
+        allocatedBytes(manual);
+        long generatedBytes = allocatedBytes(generated);
+        long manualBytes = allocatedBytes(manual);
+
+        // Allow for a small amount of noise, but not an allocation per write.
+        assertTrue("generated adapter allocated " + generatedBytes + " bytes, JsonWriter allocated " + manualBytes,
+                generatedBytes < manualBytes + ITERATIONS);
+    }
+
+    @Test
+    public void readDoesNotAllocateNames() throws IOException {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ValueTypeAdapterFactory()).create();
+        TypeAdapter<ConstructorArg> adapter = gson.getAdapter(ConstructorArg.class);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ITERATIONS; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"arg\":1,\"ignore\":2}");
+        }
+        String input = json.append("]").toString();
+
+        // Warm up so that it's measured after being compiled.
+        readAllocatedBytes(adapter, input);
+        long bytes = readAllocatedBytes(adapter, input);
+
+        // Each read should only allocate the value itself, not the names.
+        assertTrue("read allocated " + bytes / ITERATIONS + " bytes per value", bytes / ITERATIONS < 48);
+    }
+
+    private long readAllocatedBytes(TypeAdapter<ConstructorArg> adapter, String input) throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new StringReader(input));
+        in.beginArray();
+        long threadId = Thread.currentThread().getId();
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            in.read(adapter);
+        }
+        long end = threadBean.getThreadAllocatedBytes(threadId);
+        in.endArray();
+        return end - start;
+    }
+
+    private long allocatedBytes(Write write) throws IOException {
+        JsonWriter out = new JsonWriter(new NullWriter());
+        out.beginArray();
+        long threadId = Thread.currentThread().getId();
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            write.write(out);
+        }
+        long end = threadBean.getThreadAllocatedBytes(threadId);
+        out.endArray();
+        return end - start;
+    }
+
+    interface Write {
+        void write(JsonWriter out) throws IOException;
+    }
+
+    static class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
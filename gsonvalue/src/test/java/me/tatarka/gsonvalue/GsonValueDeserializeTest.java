@@ -2,9 +2,13 @@ package me.tatarka.gsonvalue;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import me.tatarka.gsonvalue.model.adapterfactory.CachingTypeAdapterFactory;
 import me.tatarka.gsonvalue.model.adapterfactory.MyTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.adapters.StringToIntTypeAdapter;
 import me.tatarka.gsonvalue.model.deserialize.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,6 +16,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.junit.runners.Parameterized;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -22,7 +27,7 @@ public class GsonValueDeserializeTest {
 
     @Parameterized.Parameters(name = "{0}")
     public static Collection<Object[]> params() {
-        return Arrays.asList(new Object[]{new ValueTypeAdapterFactory()}, new Object[]{MyTypeAdapterFactory.create()});
+        return Arrays.asList(new Object[]{new ValueTypeAdapterFactory()}, new Object[]{MyTypeAdapterFactory.create()}, new Object[]{CachingTypeAdapterFactory.create()});
     }
 
     final TypeAdapterFactory factory;
@@ -185,4 +190,59 @@ public class GsonValueDeserializeTest {
         assertEquals(1, builder.arg);
         assertTrue(builder.builderCalled);
     }
+
+    @Test
+    public void deserializePrimitiveArgs() {
+        PrimitiveArgs args = gson.fromJson("{\"booleanArg\":true,\"byteArg\":1,\"shortArg\":2,\"intArg\":3,\"longArg\":4,\"floatArg\":5.5,\"doubleArg\":6.5,\"charArg\":\"c\"}", PrimitiveArgs.class);
+
+        assertTrue(args.booleanArg);
+        assertEquals(1, args.byteArg);
+        assertEquals(2, args.shortArg);
+        assertEquals(3, args.intArg);
+        assertEquals(4, args.longArg);
+        assertEquals(5.5f, args.floatArg, 0);
+        assertEquals(6.5, args.doubleArg, 0);
+        assertEquals('c', args.charArg);
+    }
+
+    @Test
+    public void deserializePrimitiveArgsFromStrings() {
+        PrimitiveArgs args = gson.fromJson("{\"booleanArg\":\"true\",\"intArg\":\"3\",\"longArg\":\"4\",\"doubleArg\":\"6.5\"}", PrimitiveArgs.class);
+
+        assertTrue(args.booleanArg);
+        assertEquals(3, args.intArg);
+        assertEquals(4, args.longArg);
+        assertEquals(6.5, args.doubleArg, 0);
+    }
+
+    @Test
+    public void deserializeNullPrimitiveArgs() {
+        PrimitiveArgs args = gson.fromJson("{\"booleanArg\":null,\"intArg\":null,\"longArg\":null,\"doubleArg\":null}", PrimitiveArgs.class);
+
+        assertFalse(args.booleanArg);
+        assertEquals(0, args.intArg);
+        assertEquals(0, args.longArg);
+        assertEquals(0, args.doubleArg, 0);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void deserializeInvalidPrimitiveArg() {
+        gson.fromJson("{\"intArg\":\"one\"}", PrimitiveArgs.class);
+    }
+
+    @Test
+    public void deserializePrimitiveArgWithRegisteredAdapter() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(int.class, new StringToIntTypeAdapter() {
+                    @Override
+                    public Integer read(JsonReader in) throws IOException {
+                        return super.read(in) + 1;
+                    }
+                })
+                .registerTypeAdapterFactory(factory)
+                .create();
+        ConstructorArg constructorArg = gson.fromJson("{\"arg\":\"1\"}", ConstructorArg.class);
+
+        assertEquals(2, constructorArg.arg);
+    }
 }
@@ -2,10 +2,17 @@ package me.tatarka.gsonvalue;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import me.tatarka.gsonvalue.model.adapterfactory.CachingTypeAdapterFactory;
 import me.tatarka.gsonvalue.model.adapterfactory.MyTypeAdapterFactory;
 import me.tatarka.gsonvalue.model.roundtrip.Empty;
+import me.tatarka.gsonvalue.model.roundtrip.NestedValue;
 import me.tatarka.gsonvalue.model.roundtrip.PublicField;
+import me.tatarka.gsonvalue.model.roundtrip.TypeTokenFields;
 import me.tatarka.gsonvalue.model.roundtrip.WithJsonAdapterField;
 import me.tatarka.gsonvalue.model.roundtrip.WithJsonAdapterMethod;
 import org.junit.Before;
@@ -14,6 +21,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.junit.runners.Parameterized;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -24,7 +32,7 @@ public class GsonValueRoundTripTest {
 
     @Parameterized.Parameters(name = "{0}")
     public static Collection<Object[]> params() {
-        return Arrays.asList(new Object[]{new ValueTypeAdapterFactory()}, new Object[]{MyTypeAdapterFactory.create()});
+        return Arrays.asList(new Object[]{new ValueTypeAdapterFactory()}, new Object[]{MyTypeAdapterFactory.create()}, new Object[]{CachingTypeAdapterFactory.create()});
     }
 
     final TypeAdapterFactory factory;
@@ -72,4 +80,45 @@ public class GsonValueRoundTripTest {
 
         assertEquals(json, newJson);
     }
+
+    @Test
+    public void roundTripNestedValue() {
+        String json = "{\"value\":{\"arg\":1}}";
+        String newJson = gson.toJson(gson.fromJson(json, NestedValue.class));
+
+        assertEquals(json, newJson);
+    }
+
+    @Test
+    public void roundTripNestedValueWithOverride() {
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(factory)
+                .registerTypeAdapter(PublicField.class, new TypeAdapter<PublicField>() {
+                    @Override
+                    public void write(JsonWriter out, PublicField value) throws IOException {
+                        out.value(value.arg);
+                    }
+
+                    @Override
+                    public PublicField read(JsonReader in) throws IOException {
+                        return new PublicField(in.nextInt());
+                    }
+                })
+                .create();
+        String json = "{\"value\":1}";
+        String newJson = gson.toJson(gson.fromJson(json, NestedValue.class));
+
+        assertEquals(json, newJson);
+    }
+
+    @Test
+    public void roundTripTypeTokenFields() {
+        String json = "{\"first\":{\"a\":[1]},\"second\":{\"b\":[2,3]},\"numbers\":[4],\"values\":{\"c\":\"d\"}}";
+        TypeToken<TypeTokenFields<String>> type = new TypeToken<TypeTokenFields<String>>() {};
+        TypeTokenFields<String> value = gson.fromJson(json, type.getType());
+        String newJson = gson.toJson(value, type.getType());
+
+        assertEquals("d", value.values.get("c"));
+        assertEquals(json, newJson);
+    }
 }
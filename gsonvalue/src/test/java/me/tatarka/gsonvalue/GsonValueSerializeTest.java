@@ -2,7 +2,9 @@ package me.tatarka.gsonvalue;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.LongSerializationPolicy;
 import com.google.gson.TypeAdapterFactory;
+import me.tatarka.gsonvalue.model.adapterfactory.CachingTypeAdapterFactory;
 import me.tatarka.gsonvalue.model.adapterfactory.MyTypeAdapterFactory;
 import me.tatarka.gsonvalue.model.serialize.*;
 import org.junit.Before;
@@ -21,7 +23,7 @@ public class GsonValueSerializeTest {
 
     @Parameterized.Parameters(name = "{0}")
     public static Collection<Object[]> params() {
-        return Arrays.asList(new Object[]{new ValueTypeAdapterFactory()}, new Object[]{MyTypeAdapterFactory.create()});
+        return Arrays.asList(new Object[]{new ValueTypeAdapterFactory()}, new Object[]{MyTypeAdapterFactory.create()}, new Object[]{CachingTypeAdapterFactory.create()});
     }
 
     final TypeAdapterFactory factory;
@@ -133,4 +135,39 @@ public class GsonValueSerializeTest {
 
         assertEquals("{\"arg\":1}", json);
     }
+
+    @Test
+    public void serializePrimitiveFields() {
+        PrimitiveFields fields = new PrimitiveFields(true, 1, 2L, 0.1f, 0.5, 'c', "s");
+        String json = gson.toJson(fields);
+
+        assertEquals("{\"booleanArg\":true,\"intArg\":1,\"longArg\":2,\"floatArg\":0.1,\"doubleArg\":0.5,\"charArg\":\"c\",\"stringArg\":\"s\"}", json);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void serializeNaNFails() {
+        gson.toJson(new PrimitiveFields(false, 0, 0, 0, Double.NaN, 'c', null));
+    }
+
+    @Test
+    public void serializeNaNWithSpecialFloatingPointValues() {
+        Gson gson = new GsonBuilder()
+                .serializeSpecialFloatingPointValues()
+                .registerTypeAdapterFactory(factory)
+                .create();
+        String json = gson.toJson(new PrimitiveFields(false, 0, 0, 0, Double.NaN, 'c', null));
+
+        assertEquals("{\"booleanArg\":false,\"intArg\":0,\"longArg\":0,\"floatArg\":0.0,\"doubleArg\":NaN,\"charArg\":\"c\"}", json);
+    }
+
+    @Test
+    public void serializeLongWithSerializationPolicy() {
+        Gson gson = new GsonBuilder()
+                .setLongSerializationPolicy(LongSerializationPolicy.STRING)
+                .registerTypeAdapterFactory(factory)
+                .create();
+        String json = gson.toJson(new PrimitiveFields(false, 0, 2L, 0, 0, 'c', null));
+
+        assertEquals("{\"booleanArg\":false,\"intArg\":0,\"longArg\":\"2\",\"floatArg\":0.0,\"doubleArg\":0.0,\"charArg\":\"c\"}", json);
+    }
 }
@@ -0,0 +1,130 @@
+package me.tatarka.gsonvalue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import me.tatarka.gsonvalue.model.adapters.StringToIntTypeAdapter;
+import me.tatarka.gsonvalue.model.serialize.Getter;
+import me.tatarka.gsonvalue.model.serialize.PublicField;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ValueTypeAdapterFactoryTest {
+
+    @Test
+    public void missingAdapterIsOnlyLookedUpOnce() {
+        ValueTypeAdapterFactory factory = new ValueTypeAdapterFactory();
+        Gson gson1 = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+        Gson gson2 = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+
+        assertNull(factory.create(gson1, TypeToken.get(NoAdapter.class)));
+        assertNull(factory.create(gson2, TypeToken.get(NoAdapter.class)));
+
+        assertEquals(1, factory.cacheMissCount());
+        assertEquals(1, factory.cacheHitCount());
+    }
+
+    @Test
+    public void adaptersAreCachedPerGson() {
+        ValueTypeAdapterFactory factory = new ValueTypeAdapterFactory();
+        Gson gson1 = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+        Gson gson2 = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+
+        TypeAdapter<PublicField> adapter1 = factory.create(gson1, TypeToken.get(PublicField.class));
+        TypeAdapter<PublicField> adapter2 = factory.create(gson2, TypeToken.get(PublicField.class));
+
+        assertNotSame(adapter1, adapter2);
+        assertSame(adapter1, factory.create(gson1, TypeToken.get(PublicField.class)));
+    }
+
+    @Test
+    public void adaptersUseDelegatesFromTheirGson() {
+        ValueTypeAdapterFactory factory = new ValueTypeAdapterFactory();
+        Gson gson1 = new GsonBuilder()
+                .registerTypeAdapterFactory(factory)
+                .create();
+        Gson gson2 = new GsonBuilder()
+                .registerTypeAdapter(int.class, new StringToIntTypeAdapter())
+                .registerTypeAdapterFactory(factory)
+                .create();
+
+        assertEquals("{\"arg\":1}", gson1.toJson(new PublicField(1)));
+        assertEquals("{\"arg\":\"1\"}", gson2.toJson(new PublicField(1)));
+    }
+
+    @Test
+    public void cacheSizeIsBounded() {
+        ValueTypeAdapterFactory factory = new ValueTypeAdapterFactory(1);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+
+        TypeAdapter<PublicField> adapter = factory.create(gson, TypeToken.get(PublicField.class));
+        factory.create(gson, TypeToken.get(Getter.class));
+
+        assertNotSame(adapter, factory.create(gson, TypeToken.get(PublicField.class)));
+        assertEquals(3, factory.cacheMissCount());
+    }
+
+    @Test(timeout = 10000)
+    public void adaptersCanBeCreatedOnAnotherThreadWhileCreatingAnAdapter() throws InterruptedException {
+        final ValueTypeAdapterFactory factory = new ValueTypeAdapterFactory();
+        final AtomicBoolean started = new AtomicBoolean();
+        final AtomicReference<TypeAdapter<?>> created = new AtomicReference<>();
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(factory)
+                .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                    @Override
+                    public <T> TypeAdapter<T> create(final Gson gson, TypeToken<T> type) {
+                        // Asked for while creating PublicField's adapter.
+                        if (type.getRawType() != int.class || !started.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        Thread thread = new Thread() {
+                            @Override
+                            public void run() {
+                                created.set(factory.create(gson, TypeToken.get(Getter.class)));
+                            }
+                        };
+                        thread.start();
+                        try {
+                            thread.join();
+                        } catch (InterruptedException e) {
+                            throw new AssertionError(e);
+                        }
+                        return null;
+                    }
+                })
+                .create();
+
+        assertNotNull(factory.create(gson, TypeToken.get(PublicField.class)));
+        assertNotNull(created.get());
+    }
+
+    @Test
+    public void generatedAdaptersAreIndexed() {
+        boolean found = false;
+        for (ValueTypeAdapterIndex index : ServiceLoader.load(ValueTypeAdapterIndex.class)) {
+            found |= Arrays.asList(index.classNames()).contains(PublicField.class.getName());
+        }
+
+        assertTrue(found);
+    }
+
+    static class NoAdapter {
+    }
+}
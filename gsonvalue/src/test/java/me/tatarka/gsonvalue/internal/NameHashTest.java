@@ -0,0 +1,72 @@
+package me.tatarka.gsonvalue.internal;
+
+import me.tatarka.gsonvalue.stream.NameTable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.Field;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(JUnit4.class)
+public class NameHashTest {
+
+    @Test
+    public void tableUsesComputedHash() throws Exception {
+        for (int size = 0; size < 300; size++) {
+            String[] names = new String[size];
+            for (int i = 0; i < size; i++) {
+                names[i] = "field" + i * 31;
+            }
+            assertUsedAsIs(names);
+        }
+    }
+
+    @Test
+    public void tableUsesComputedHashForUnusualNames() throws Exception {
+        assertUsedAsIs("", "a", "A", "\"", "\\", "\n", "\u00e9", "\u20ac", "\ud83d\ude00", "Aa", "BB");
+        Random random = new Random(0);
+        for (int size = 1; size < 100; size++) {
+            Set<String> names = new LinkedHashSet<>();
+            while (names.size() < size) {
+                char[] chars = new char[random.nextInt(20)];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) random.nextInt(0x3000);
+                }
+                names.add(new String(chars));
+            }
+            assertUsedAsIs(names.toArray(new String[0]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateNamesFail() {
+        NameHash.compute(new String[]{"a", "b", "a"});
+    }
+
+    /**
+     * Generated adapters pass the processor's hash to the table, which only recomputes it if it
+     * isn't a perfect hash of the names.
+     */
+    private static void assertUsedAsIs(String... names) throws Exception {
+        NameHash hash = NameHash.compute(names);
+        NameTable table = new NameTable(hash.seed, hash.displacements, names);
+
+        assertEquals(hash.seed, get(table, "seed"));
+        assertSame(hash.displacements, get(table, "displacements"));
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(i, table.indexOf(names[i]));
+        }
+    }
+
+    private static Object get(NameTable table, String name) throws Exception {
+        Field field = NameTable.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(table);
+    }
+}
@@ -0,0 +1,12 @@
+package me.tatarka.gsonvalue.model.adapterfactory;
+
+import com.google.gson.TypeAdapterFactory;
+import me.tatarka.gsonvalue.annotations.GsonValueTypeAdapterFactory;
+
+@GsonValueTypeAdapterFactory(cacheAdapters = true)
+public abstract class CachingTypeAdapterFactory implements TypeAdapterFactory {
+
+    public static CachingTypeAdapterFactory create() {
+        return new GsonValue_CachingTypeAdapterFactory();
+    }
+}
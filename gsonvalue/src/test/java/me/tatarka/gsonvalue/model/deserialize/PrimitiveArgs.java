@@ -0,0 +1,26 @@
+package me.tatarka.gsonvalue.model.deserialize;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class PrimitiveArgs {
+    public final boolean booleanArg;
+    public final byte byteArg;
+    public final short shortArg;
+    public final int intArg;
+    public final long longArg;
+    public final float floatArg;
+    public final double doubleArg;
+    public final char charArg;
+
+    @GsonConstructor
+    public PrimitiveArgs(boolean booleanArg, byte byteArg, short shortArg, int intArg, long longArg, float floatArg, double doubleArg, char charArg) {
+        this.booleanArg = booleanArg;
+        this.byteArg = byteArg;
+        this.shortArg = shortArg;
+        this.intArg = intArg;
+        this.longArg = longArg;
+        this.floatArg = floatArg;
+        this.doubleArg = doubleArg;
+        this.charArg = charArg;
+    }
+}
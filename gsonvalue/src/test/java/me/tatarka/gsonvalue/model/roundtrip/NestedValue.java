@@ -0,0 +1,12 @@
+package me.tatarka.gsonvalue.model.roundtrip;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class NestedValue {
+    public final PublicField value;
+
+    @GsonConstructor
+    public NestedValue(PublicField value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,21 @@
+package me.tatarka.gsonvalue.model.roundtrip;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+public class TypeTokenFields<T> {
+    public final Map<String, List<Integer>> first;
+    public final Map<String, List<Integer>> second;
+    public final List<? extends Number> numbers;
+    public final Map<String, T> values;
+
+    @GsonConstructor
+    public TypeTokenFields(Map<String, List<Integer>> first, Map<String, List<Integer>> second, List<? extends Number> numbers, Map<String, T> values) {
+        this.first = first;
+        this.second = second;
+        this.numbers = numbers;
+        this.values = values;
+    }
+}
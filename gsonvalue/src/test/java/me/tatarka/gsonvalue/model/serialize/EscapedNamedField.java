@@ -0,0 +1,14 @@
+package me.tatarka.gsonvalue.model.serialize;
+
+import com.google.gson.annotations.SerializedName;
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class EscapedNamedField {
+    @SerializedName("<\"named\">")
+    public final String arg;
+
+    @GsonConstructor
+    public EscapedNamedField(String arg) {
+        this.arg = arg;
+    }
+}
@@ -0,0 +1,20 @@
+package me.tatarka.gsonvalue.model.serialize;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class FlatFields {
+    public final boolean booleanArg;
+    public final int intArg;
+    public final long longArg;
+    public final double doubleArg;
+    public final String stringArg;
+
+    @GsonConstructor
+    public FlatFields(boolean booleanArg, int intArg, long longArg, double doubleArg, String stringArg) {
+        this.booleanArg = booleanArg;
+        this.intArg = intArg;
+        this.longArg = longArg;
+        this.doubleArg = doubleArg;
+        this.stringArg = stringArg;
+    }
+}
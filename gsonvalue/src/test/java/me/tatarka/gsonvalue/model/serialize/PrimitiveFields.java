@@ -0,0 +1,24 @@
+package me.tatarka.gsonvalue.model.serialize;
+
+import me.tatarka.gsonvalue.annotations.GsonConstructor;
+
+public class PrimitiveFields {
+    public final boolean booleanArg;
+    public final int intArg;
+    public final long longArg;
+    public final float floatArg;
+    public final double doubleArg;
+    public final char charArg;
+    public final String stringArg;
+
+    @GsonConstructor
+    public PrimitiveFields(boolean booleanArg, int intArg, long longArg, float floatArg, double doubleArg, char charArg, String stringArg) {
+        this.booleanArg = booleanArg;
+        this.intArg = intArg;
+        this.longArg = longArg;
+        this.floatArg = floatArg;
+        this.doubleArg = doubleArg;
+        this.charArg = charArg;
+        this.stringArg = stringArg;
+    }
+}
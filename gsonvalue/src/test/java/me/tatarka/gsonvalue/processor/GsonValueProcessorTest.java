@@ -6,8 +6,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.util.Arrays;
+
 import static com.google.common.truth.Truth.assertAbout;
 import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
 
 @RunWith(JUnit4.class)
 public class GsonValueProcessorTest {
@@ -49,9 +52,16 @@ public class GsonValueProcessorTest {
                 .and().generatesSources(JavaFileObjects.forSourceString("test.ValueTypeAdapter_Test",
                 "package test;\n" +
                         "\n" +
-                        VALUE_TYPE_ADAPTER_IMPORTS +
+                        "import com.google.gson.Gson;\n" +
+                        "import com.google.gson.reflect.TypeToken;\n" +
+                        "import com.google.gson.stream.JsonReader;\n" +
+                        "import com.google.gson.stream.JsonToken;\n" +
+                        "import com.google.gson.stream.JsonWriter;\n" +
+                        "import java.io.IOException;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
                         "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "    }\n" +
                         "    @Override\n" +
@@ -67,6 +77,13 @@ public class GsonValueProcessorTest {
                         "        in.skipValue();\n" +
                         "        return new Test();\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        in.skipValue();\n" +
+                        "        return new Test();\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -94,18 +111,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -117,7 +147,25 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"arg\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test(_arg);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -154,18 +202,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -177,7 +238,25 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"arg\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return Test.create(_arg);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -226,18 +305,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -249,7 +341,27 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"arg\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test.Builder()\n" +
+                        "                .arg(_arg)\n" +
+                        "                .build();\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -301,18 +413,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -324,7 +449,27 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"arg\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return Test.builder()\n" +
+                        "                .arg(_arg)\n" +
+                        "                .build();\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -338,6 +483,7 @@ public class GsonValueProcessorTest {
                         "}"));
     }
 
+    @Test
     public void oneRequiredArgBuilderConstructor() {
         assertAbout(javaSource()).that(JavaFileObjects.forSourceString("test.Test",
                 "package test;\n" +
@@ -370,18 +516,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -393,7 +552,26 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"arg\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test.Builder(_arg)\n" +
+                        "                .build();\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -447,18 +625,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"named\", \"\\\"named\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"named\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"named\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -470,7 +661,26 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"named\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return Test.builder(_arg)\n" +
+                        "                .build();\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"named\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -509,17 +719,24 @@ public class GsonValueProcessorTest {
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
                         "import java.util.List;\n" +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final TypeToken<List<String>> type_arg = (TypeToken<List<String>>) TypeToken.getParameterized(List.class, String.class);\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<List<String>> adapter_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
-                        "        this.adapter_arg = gson.getAdapter(new TypeToken<List<String>>() {});\n" +
+                        "        this.adapter_arg = gson.getAdapter(type_arg);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
+                        "        name_arg.writeTo(out);\n" +
                         "        adapter_arg.write(out, value.arg());\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
@@ -541,6 +758,24 @@ public class GsonValueProcessorTest {
                         "        in.endObject();\n" +
                         "        return new Test(_arg);\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        List<String> _arg = null;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = in.read(adapter_arg);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test(_arg);\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -569,17 +804,25 @@ public class GsonValueProcessorTest {
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
                         "import java.lang.reflect.ParameterizedType;\n" +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test<T> extends TypeAdapter<Test<T>> {\n" +
+                        "import java.lang.reflect.Type;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test<T> extends ValueTypeAdapter<Test<T>> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<T> adapter_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test<T>> typeToken) {\n" +
-                        "        this.adapter_arg = gson.getAdapter((TypeToken<T>) TypeToken.get(((ParameterizedType)typeToken.getType()).getActualTypeArguments()[0]));" +
+                        "        Type[] typeArguments = ((ParameterizedType) typeToken.getType()).getActualTypeArguments();\n" +
+                        "        this.adapter_arg = gson.getAdapter((TypeToken<T>) TypeToken.get(typeArguments[0]));\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test<T> value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
+                        "        name_arg.writeTo(out);\n" +
                         "        adapter_arg.write(out, value.arg());\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
@@ -601,6 +844,24 @@ public class GsonValueProcessorTest {
                         "        in.endObject();\n" +
                         "        return new Test<T>(_arg);\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test<T> read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        T _arg = null;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = in.read(adapter_arg);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test<T>(_arg);\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -630,18 +891,26 @@ public class GsonValueProcessorTest {
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
                         "import java.lang.reflect.ParameterizedType;\n" +
+                        "import java.lang.reflect.Type;\n" +
                         "import java.util.List;\n" +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test<T> extends TypeAdapter<Test<T>> {\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test<T> extends ValueTypeAdapter<Test<T>> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<List<T>> adapter_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test<T>> typeToken) {\n" +
-                        "        this.adapter_arg = gson.getAdapter((TypeToken<List<T>>) TypeToken.getParameterized(List.class, ((ParameterizedType)typeToken.getType()).getActualTypeArguments()[0]));\n" +
+                        "        Type[] typeArguments = ((ParameterizedType) typeToken.getType()).getActualTypeArguments();\n" +
+                        "        this.adapter_arg = gson.getAdapter((TypeToken<List<T>>) TypeToken.getParameterized(List.class, typeArguments[0]));\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test<T> value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
+                        "        name_arg.writeTo(out);\n" +
                         "        adapter_arg.write(out, value.arg());\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
@@ -663,6 +932,243 @@ public class GsonValueProcessorTest {
                         "        in.endObject();\n" +
                         "        return new Test<T>(_arg);\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test<T> read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        List<T> _arg = null;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = in.read(adapter_arg);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test<T>(_arg);\n" +
+                        "    }\n" +
+                        "}"));
+    }
+
+    @Test
+    public void nestedValueType() {
+        assertAbout(javaSources()).that(Arrays.asList(JavaFileObjects.forSourceString("test.Inner",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Inner {\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Inner() {\n" +
+                        "    }\n" +
+                        "}"), JavaFileObjects.forSourceString("test.Test",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test {\n" +
+                        "    public final Inner arg;\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test(Inner arg) {\n" +
+                        "        this.arg = arg;\n" +
+                        "    }\n" +
+                        "}")))
+                .processedWith(new GsonValueProcessor())
+                .compilesWithoutError()
+                .and().generatesSources(JavaFileObjects.forSourceString("test.ValueTypeAdapter_Test",
+                "package test;\n" +
+                        "\n" +
+                        VALUE_TYPE_ADAPTER_IMPORTS +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
+                        "    private final TypeAdapter<Inner> adapter_arg;\n" +
+                        "    private final ValueTypeAdapter_Inner direct_arg;\n" +
+                        "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
+                        "        this.adapter_arg = gson.getAdapter(Inner.class);\n" +
+                        "        this.direct_arg = adapter_arg instanceof ValueTypeAdapter_Inner ? (ValueTypeAdapter_Inner) adapter_arg : null;\n" +
+                        "    }\n" +
+                        "    @Override\n" +
+                        "    public void write(JsonWriter out, Test value) throws IOException {\n" +
+                        WRITE_NULL_CHECK +
+                        "        out.beginObject();\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (direct_arg != null) {\n" +
+                        "            direct_arg.write(out, value.arg);\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg);\n" +
+                        "        }\n" +
+                        "        out.endObject();\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(JsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        Inner _arg = null;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.nextName()) {\n" +
+                        "                case \"arg\":\n" +
+                        "                    _arg = direct_arg != null ? direct_arg.read(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test(_arg);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        Inner _arg = null;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = direct_arg != null ? direct_arg.read(in) : in.read(adapter_arg);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test(_arg);\n" +
+                        "    }\n" +
+                        "}"));
+    }
+
+    @Test
+    public void lazyAdapters() {
+        assertAbout(javaSource()).that(JavaFileObjects.forSourceString("test.Test",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "import java.util.List;\n" +
+                        "\n" +
+                        "public class Test<T> {\n" +
+                        "    private final List<T> arg;\n" +
+                        "    private final int count;\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test(List<T> arg, int count) {\n" +
+                        "        this.arg = arg;\n" +
+                        "        this.count = count;\n" +
+                        "    }\n" +
+                        "    \n" +
+                        "    public List<T> arg() {\n" +
+                        "        return arg;\n" +
+                        "    }\n" +
+                        "    \n" +
+                        "    public int count() {\n" +
+                        "        return count;\n" +
+                        "    }\n" +
+                        "}"))
+                .withCompilerOptions("-Agsonvalue.lazyAdapters=true")
+                .processedWith(new GsonValueProcessor())
+                .compilesWithoutError()
+                .and().generatesSources(JavaFileObjects.forSourceString("test.ValueTypeAdapter_Test",
+                "package test;\n" +
+                        "\n" +
+                        VALUE_TYPE_ADAPTER_IMPORTS +
+                        "import java.lang.reflect.ParameterizedType;\n" +
+                        "import java.lang.reflect.Type;\n" +
+                        "import java.util.List;\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test<T> extends ValueTypeAdapter<Test<T>> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final JsonName name_count = new JsonName(\"count\", \"\\\"count\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\", \"count\");\n" +
+                        "    private TypeAdapter<List<T>> adapter_arg;\n" +
+                        "    private final TypeAdapter<Integer> adapter_count;\n" +
+                        "    private final boolean builtIn_count;\n" +
+                        "    private final Gson gson;\n" +
+                        "    private final Type[] typeArguments;\n" +
+                        "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test<T>> typeToken) {\n" +
+                        "        this.gson = gson;\n" +
+                        "        this.typeArguments = ((ParameterizedType) typeToken.getType()).getActualTypeArguments();\n" +
+                        "        this.adapter_count = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_count = BuiltInAdapters.isBuiltIn(adapter_count, int.class);\n" +
+                        "    }\n" +
+                        "    private TypeAdapter<List<T>> adapter_arg() {\n" +
+                        "        TypeAdapter<List<T>> adapter = adapter_arg;\n" +
+                        "        if (adapter == null) {\n" +
+                        "            adapter = gson.getAdapter((TypeToken<List<T>>) TypeToken.getParameterized(List.class, typeArguments[0]));\n" +
+                        "            adapter_arg = adapter;\n" +
+                        "        }\n" +
+                        "        return adapter;\n" +
+                        "    }\n" +
+                        "    @Override\n" +
+                        "    public void write(JsonWriter out, Test<T> value) throws IOException {\n" +
+                        WRITE_NULL_CHECK +
+                        "        out.beginObject();\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        adapter_arg().write(out, value.arg());\n" +
+                        "        name_count.writeTo(out);\n" +
+                        "        if (builtIn_count) {\n" +
+                        "            out.value(value.count());\n" +
+                        "        } else {\n" +
+                        "            adapter_count.write(out, value.count());\n" +
+                        "        }\n" +
+                        "        out.endObject();\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test<T> read(JsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        List<T> _arg = null;\n" +
+                        "        int _count = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.nextName()) {\n" +
+                        "                case \"arg\":\n" +
+                        "                    _arg = adapter_arg().read(in);\n" +
+                        "                    break;\n" +
+                        "                case \"count\":\n" +
+                        "                    _count = builtIn_count ? BuiltInAdapters.nextInt(in) : adapter_count.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test<T>(_arg, _count);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test<T> read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        List<T> _arg = null;\n" +
+                        "        int _count = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = in.read(adapter_arg());\n" +
+                        "                    break;\n" +
+                        "                case 1: // \"count\"\n" +
+                        "                    _count = builtIn_count ? BuiltInAdapters.nextInt(in) : in.read(adapter_count);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test<T>(_arg, _count);\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -703,18 +1209,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"named\", \"\\\"named\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"named\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"named\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -726,7 +1245,25 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"named\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return Test.create(_arg);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"named\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -766,8 +1303,14 @@ public class GsonValueProcessorTest {
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
                         "import me.tatarka.gsonvalue.model.adapters.StringToIntTypeAdapter;\n" +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = new StringToIntTypeAdapter();\n" +
@@ -776,7 +1319,7 @@ public class GsonValueProcessorTest {
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
+                        "        name_arg.writeTo(out);\n" +
                         "        adapter_arg.write(out, value.arg());\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
@@ -798,6 +1341,24 @@ public class GsonValueProcessorTest {
                         "        in.endObject();\n" +
                         "        return new Test(_arg);\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = in.read(adapter_arg);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test(_arg);\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -829,8 +1390,14 @@ public class GsonValueProcessorTest {
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
                         "import me.tatarka.gsonvalue.model.adapters.StringToIntTypeAdapterFactory;\n" +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = new StringToIntTypeAdapterFactory().create(gson, TypeToken.get(int.class));\n" +
@@ -839,7 +1406,7 @@ public class GsonValueProcessorTest {
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
+                        "        name_arg.writeTo(out);\n" +
                         "        adapter_arg.write(out, value.arg());\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
@@ -861,6 +1428,24 @@ public class GsonValueProcessorTest {
                         "        in.endObject();\n" +
                         "        return new Test(_arg);\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = in.read(adapter_arg);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return new Test(_arg);\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -881,9 +1466,16 @@ public class GsonValueProcessorTest {
                 .and().generatesSources(JavaFileObjects.forSourceString("test.ValueTypeAdapter_Test",
                 "package test;\n" +
                         "\n" +
-                        VALUE_TYPE_ADAPTER_IMPORTS +
+                        "import com.google.gson.Gson;\n" +
+                        "import com.google.gson.reflect.TypeToken;\n" +
+                        "import com.google.gson.stream.JsonReader;\n" +
+                        "import com.google.gson.stream.JsonToken;\n" +
+                        "import com.google.gson.stream.JsonWriter;\n" +
+                        "import java.io.IOException;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
                         "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "    }\n" +
                         "    @Override\n" +
@@ -899,6 +1491,13 @@ public class GsonValueProcessorTest {
                         "        in.skipValue();\n" +
                         "        return new Test();\n" +
                         "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        in.skipValue();\n" +
+                        "        return new Test();\n" +
+                        "    }\n" +
                         "}"));
     }
 
@@ -927,18 +1526,31 @@ public class GsonValueProcessorTest {
                 "package test;\n" +
                         "\n" +
                         VALUE_TYPE_ADAPTER_IMPORTS +
-                        "\n" +
-                        "public class ValueTypeAdapter_Test extends TypeAdapter<Test> {\n" +
+                        "import me.tatarka.gsonvalue.internal.BuiltInAdapters;\n" +
+                        "import me.tatarka.gsonvalue.stream.JsonName;\n" +
+                        "import me.tatarka.gsonvalue.stream.NameTable;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueJsonReader;\n" +
+                        "import me.tatarka.gsonvalue.stream.ValueTypeAdapter;\n" +
+                        "\n" +
+                        "public final class ValueTypeAdapter_Test extends ValueTypeAdapter<Test> {\n" +
+                        "    private static final JsonName name_arg = new JsonName(\"arg\", \"\\\"arg\\\"\");\n" +
+                        "    private static final NameTable NAMES = new NameTable(0x811c9dc5, new int[] {0}, \"arg\");\n" +
                         "    private final TypeAdapter<Integer> adapter_arg;\n" +
+                        "    private final boolean builtIn_arg;\n" +
                         "    public ValueTypeAdapter_Test(Gson gson, TypeToken<Test> typeToken) {\n" +
                         "        this.adapter_arg = gson.getAdapter(int.class);\n" +
+                        "        this.builtIn_arg = BuiltInAdapters.isBuiltIn(adapter_arg, int.class);\n" +
                         "    }\n" +
                         "    @Override\n" +
                         "    public void write(JsonWriter out, Test value) throws IOException {\n" +
                         WRITE_NULL_CHECK +
                         "        out.beginObject();\n" +
-                        "        out.name(\"arg\");\n" +
-                        "        adapter_arg.write(out, value.arg());\n" +
+                        "        name_arg.writeTo(out);\n" +
+                        "        if (builtIn_arg) {\n" +
+                        "            out.value(value.arg());\n" +
+                        "        } else {\n" +
+                        "            adapter_arg.write(out, value.arg());\n" +
+                        "        }\n" +
                         "        out.endObject();\n" +
                         "    }\n" +
                         "\n" +
@@ -950,7 +1562,25 @@ public class GsonValueProcessorTest {
                         "        while (in.hasNext()) {\n" +
                         "            switch (in.nextName()) {\n" +
                         "                case \"arg\":\n" +
-                        "                    _arg = adapter_arg.read(in);\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : adapter_arg.read(in);\n" +
+                        "                    break;\n" +
+                        "                default:\n" +
+                        "                    in.skipValue();\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "        in.endObject();\n" +
+                        "        return Test.create(_arg);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    public Test read(ValueJsonReader in) throws IOException {\n" +
+                        READ_NULL_CHECK +
+                        "        int _arg = 0;\n" +
+                        "        in.beginObject();\n" +
+                        "        while (in.hasNext()) {\n" +
+                        "            switch (in.selectName(NAMES)) {\n" +
+                        "                case 0: // \"arg\"\n" +
+                        "                    _arg = builtIn_arg ? BuiltInAdapters.nextInt(in) : in.read(adapter_arg);\n" +
                         "                    break;\n" +
                         "                default:\n" +
                         "                    in.skipValue();\n" +
@@ -982,4 +1612,26 @@ public class GsonValueProcessorTest {
                         "  Test()\n" +
                         "  Test(int)");
     }
+
+    @Test
+    public void duplicateSerializedNamesFail() {
+        assertAbout(javaSource()).that(JavaFileObjects.forSourceString("test.Test",
+                "package test;\n" +
+                        "\n" +
+                        "import com.google.gson.annotations.SerializedName;\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test {\n" +
+                        "    @SerializedName(\"x\") public final int a;\n" +
+                        "    @SerializedName(\"x\") public final int b;\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test(int a, int b) {\n" +
+                        "        this.a = a;\n" +
+                        "        this.b = b;\n" +
+                        "    }\n" +
+                        "}"))
+                .processedWith(new GsonValueProcessor())
+                .failsToCompile()
+                .withErrorContaining("Duplicate serialized name \"x\" found on a and b");
+    }
 }
@@ -7,6 +7,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import javax.tools.StandardLocation;
 import java.util.Arrays;
 
 import static com.google.common.truth.Truth.assertAbout;
@@ -81,15 +82,29 @@ public class GsonValueTypeAdapterFactoryProcessorTest {
                         "import com.google.gson.Gson;\n" +
                         "import com.google.gson.TypeAdapter;\n" +
                         "import com.google.gson.reflect.TypeToken;\n" +
+                        "import java.lang.Class;\n" +
+                        "import java.lang.Integer;\n" +
                         "import java.lang.Override;\n" +
                         "import java.lang.SuppressWarnings;\n" +
+                        "import java.util.IdentityHashMap;\n" +
+                        "import java.util.Map;\n" +
                         "\n" +
                         "final class GsonValue_TestFactory extends TestFactory {\n" +
+                        "    private static final Map<Class<?>, Integer> TYPES = new IdentityHashMap<>(1);\n" +
+                        "\n" +
+                        "    static {\n" +
+                        "        TYPES.put(Test.class, 0);\n" +
+                        "    }\n" +
+                        "\n" +
                         "    @Override\n" +
                         "    @SuppressWarnings(\"unchecked\")\n" +
                         "    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n" +
-                        "        switch (type.getRawType().getName()) {\n" +
-                        "            case \"test.Test\":\n" +
+                        "        Integer id = TYPES.get(type.getRawType());\n" +
+                        "        if (id == null) {\n" +
+                        "            return null;\n" +
+                        "        }\n" +
+                        "        switch (id) {\n" +
+                        "            case 0:\n" +
                         "                return (TypeAdapter<T>) new ValueTypeAdapter_Test(gson, (TypeToken<Test>) type);\n" +
                         "            default:\n" +
                         "                return null;\n" +
@@ -97,4 +112,222 @@ public class GsonValueTypeAdapterFactoryProcessorTest {
                         "    }\n" +
                         "}"));
     }
+
+    @Test
+    public void factoryWithCachedAdapters() {
+        assertAbout(javaSources()).that(Arrays.asList(JavaFileObjects.forSourceString("test.TestFactory",
+                "package test;\n" +
+                        "\n" +
+                        "import com.google.gson.TypeAdapterFactory;\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonValueTypeAdapterFactory;\n" +
+                        "\n" +
+                        "@GsonValueTypeAdapterFactory(cacheAdapters = true)\n" +
+                        "public abstract class TestFactory implements TypeAdapterFactory {\n" +
+                        "    public static TestFactory create() {\n" +
+                        "        return new GsonValue_TestFactory();\n" +
+                        "    }\n" +
+                        "}"), JavaFileObjects.forSourceString("test.Test",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test {\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test() {\n" +
+                        "    }\n" +
+                        "}")))
+                .processedWith(new GsonValueProcessor(), new GsonValueTypeAdapterFactoryProcessor())
+                .compilesWithoutError()
+                .and().generatesSources(JavaFileObjects.forSourceString("test.GsonValue_TestFactory",
+                "package test;\n" +
+                        "\n" +
+                        "import com.google.gson.Gson;\n" +
+                        "import com.google.gson.TypeAdapter;\n" +
+                        "import com.google.gson.reflect.TypeToken;\n" +
+                        "import java.lang.Class;\n" +
+                        "import java.lang.Integer;\n" +
+                        "import java.lang.Override;\n" +
+                        "import java.lang.SuppressWarnings;\n" +
+                        "import java.lang.ref.WeakReference;\n" +
+                        "import java.util.IdentityHashMap;\n" +
+                        "import java.util.Map;\n" +
+                        "import java.util.WeakHashMap;\n" +
+                        "\n" +
+                        "final class GsonValue_TestFactory extends TestFactory {\n" +
+                        "    private static final Map<Class<?>, Integer> TYPES = new IdentityHashMap<>(1);\n" +
+                        "\n" +
+                        "    static {\n" +
+                        "        TYPES.put(Test.class, 0);\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    private final Map<Gson, WeakReference<?>[]> adapters = new WeakHashMap<>();\n" +
+                        "\n" +
+                        "    private TypeAdapter<?> getCachedAdapter(Gson gson, int id) {\n" +
+                        "        synchronized (adapters) {\n" +
+                        "            WeakReference<?>[] cache = adapters.get(gson);\n" +
+                        "            return cache != null && cache[id] != null ? (TypeAdapter<?>) cache[id].get() : null;\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    private TypeAdapter<?> putCachedAdapter(Gson gson, int id, TypeAdapter<?> adapter) {\n" +
+                        "        synchronized (adapters) {\n" +
+                        "            WeakReference<?>[] cache = adapters.get(gson);\n" +
+                        "            if (cache == null) {\n" +
+                        "                cache = new WeakReference[1];\n" +
+                        "                adapters.put(gson, cache);\n" +
+                        "            }\n" +
+                        "            cache[id] = new WeakReference<>(adapter);\n" +
+                        "            return adapter;\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    @SuppressWarnings(\"unchecked\")\n" +
+                        "    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n" +
+                        "        Integer id = TYPES.get(type.getRawType());\n" +
+                        "        if (id == null) {\n" +
+                        "            return null;\n" +
+                        "        }\n" +
+                        "        switch (id) {\n" +
+                        "            case 0: {\n" +
+                        "                TypeAdapter<?> adapter = getCachedAdapter(gson, 0);\n" +
+                        "                if (adapter == null) {\n" +
+                        "                    adapter = putCachedAdapter(gson, 0, new ValueTypeAdapter_Test(gson, (TypeToken<Test>) type));\n" +
+                        "                }\n" +
+                        "                return (TypeAdapter<T>) adapter;\n" +
+                        "            }\n" +
+                        "            default:\n" +
+                        "                return null;\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "}"));
+    }
+
+    @Test
+    public void index() {
+        assertAbout(javaSources()).that(Arrays.asList(JavaFileObjects.forSourceString("test.Test",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test {\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test() {\n" +
+                        "    }\n" +
+                        "}"), JavaFileObjects.forSourceString("test.Test2",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test2 {\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test2() {\n" +
+                        "    }\n" +
+                        "}")))
+                .processedWith(new GsonValueProcessor(), new GsonValueTypeAdapterFactoryProcessor())
+                .compilesWithoutError()
+                .and().generatesSources(JavaFileObjects.forSourceString("test.GsonValueIndex_737d1542",
+                "package test;\n" +
+                        "\n" +
+                        "import com.google.gson.Gson;\n" +
+                        "import com.google.gson.TypeAdapter;\n" +
+                        "import com.google.gson.reflect.TypeToken;\n" +
+                        "import java.lang.Override;\n" +
+                        "import java.lang.String;\n" +
+                        "import java.lang.SuppressWarnings;\n" +
+                        "import me.tatarka.gsonvalue.ValueTypeAdapterIndex;\n" +
+                        "\n" +
+                        "public final class GsonValueIndex_737d1542 implements ValueTypeAdapterIndex {\n" +
+                        "    @Override\n" +
+                        "    public String[] classNames() {\n" +
+                        "        return new String[] {\"test.Test\", \"test.Test2\"};\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n" +
+                        "    public TypeAdapter<?> create(int id, Gson gson, TypeToken<?> type) {\n" +
+                        "        switch (id) {\n" +
+                        "            case 0:\n" +
+                        "                return new ValueTypeAdapter_Test(gson, (TypeToken) type);\n" +
+                        "            case 1:\n" +
+                        "                return new ValueTypeAdapter_Test2(gson, (TypeToken) type);\n" +
+                        "            default:\n" +
+                        "                return null;\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "}"))
+                .and().generatesFileNamed(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/me.tatarka.gsonvalue.ValueTypeAdapterIndex");
+    }
+
+    @Test
+    public void indexInDefaultPackage() {
+        assertAbout(javaSources()).that(Arrays.asList(JavaFileObjects.forSourceString("Test",
+                "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test {\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test() {\n" +
+                        "    }\n" +
+                        "}"), JavaFileObjects.forSourceString("test.Test2",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "public class Test2 {\n" +
+                        "    @GsonConstructor\n" +
+                        "    public Test2() {\n" +
+                        "    }\n" +
+                        "}")))
+                .processedWith(new GsonValueProcessor(), new GsonValueTypeAdapterFactoryProcessor())
+                .compilesWithoutError()
+                .and().generatesSources(JavaFileObjects.forSourceString("GsonValueIndex_f738569e",
+                "import com.google.gson.Gson;\n" +
+                        "import com.google.gson.TypeAdapter;\n" +
+                        "import com.google.gson.reflect.TypeToken;\n" +
+                        "import java.lang.Override;\n" +
+                        "import java.lang.String;\n" +
+                        "import java.lang.SuppressWarnings;\n" +
+                        "import me.tatarka.gsonvalue.ValueTypeAdapterIndex;\n" +
+                        "import test.ValueTypeAdapter_Test2;\n" +
+                        "\n" +
+                        "public final class GsonValueIndex_f738569e implements ValueTypeAdapterIndex {\n" +
+                        "    @Override\n" +
+                        "    public String[] classNames() {\n" +
+                        "        return new String[] {\"Test\", \"test.Test2\"};\n" +
+                        "    }\n" +
+                        "\n" +
+                        "    @Override\n" +
+                        "    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n" +
+                        "    public TypeAdapter<?> create(int id, Gson gson, TypeToken<?> type) {\n" +
+                        "        switch (id) {\n" +
+                        "            case 0:\n" +
+                        "                return new ValueTypeAdapter_Test(gson, (TypeToken) type);\n" +
+                        "            case 1:\n" +
+                        "                return new ValueTypeAdapter_Test2(gson, (TypeToken) type);\n" +
+                        "            default:\n" +
+                        "                return null;\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "}"));
+    }
+
+    @Test
+    public void searchErrorReportedOnce() {
+        assertAbout(javaSource()).that(JavaFileObjects.forSourceString("test.Test",
+                "package test;\n" +
+                        "\n" +
+                        "import me.tatarka.gsonvalue.annotations.GsonConstructor;\n" +
+                        "\n" +
+                        "@GsonConstructor\n" +
+                        "public class Test {\n" +
+                        "    public Test() {\n" +
+                        "    }\n" +
+                        "    public Test(int arg) {\n" +
+                        "    }\n" +
+                        "}"))
+                .processedWith(new GsonValueProcessor(), new GsonValueTypeAdapterFactoryProcessor())
+                .failsToCompile()
+                .withErrorCount(1)
+                .withErrorContaining("More than one constructor or factory method found.");
+    }
 }
@@ -0,0 +1,213 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.MalformedJsonException;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.deserialize.ComplexArg;
+import me.tatarka.gsonvalue.model.deserialize.ConstructorArg;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class MappedJsonArrayReaderTest {
+
+    Gson gson;
+    ExecutorService executor;
+    File file;
+
+    @Before
+    public void setup() throws IOException {
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+        executor = Executors.newFixedThreadPool(4);
+        file = File.createTempFile("json", null);
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+        file.delete();
+    }
+
+    @Test
+    public void readsElementsInOrder() throws IOException {
+        write(elements(1000));
+        MappedJsonArrayReader<ConstructorArg> reader = reader();
+        reader.setRangeSize(64);
+        reader.setMaxRangesInFlight(3);
+        reader.windowSize = 256;
+        Collector collector = new Collector();
+
+        read(reader, collector);
+
+        assertEquals(range(1000), collector.args);
+    }
+
+    @Test
+    public void readsElementsUnordered() throws IOException {
+        write(elements(1000));
+        MappedJsonArrayReader<ConstructorArg> reader = reader();
+        reader.setRangeSize(64);
+        reader.setOrdered(false);
+        Collector collector = new Collector();
+
+        read(reader, collector);
+
+        Collections.sort(collector.args);
+        assertEquals(range(1000), collector.args);
+    }
+
+    @Test
+    public void ignoresBracketsAndCommasInStrings() throws IOException {
+        write(" [{\"args\":[\"],\\\"[\", \"{\"]}, {\"args\":[]}\n]\n");
+        MappedJsonArrayReader<ComplexArg> reader = new MappedJsonArrayReader<>(gson.getAdapter(ComplexArg.class), executor);
+        reader.setRangeSize(1);
+        reader.windowSize = 32;
+        final List<List<String>> args = new ArrayList<>();
+
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            reader.read(in.getChannel(), new ValueCallback<ComplexArg>() {
+                @Override
+                public void onValue(ComplexArg value) {
+                    args.add(value.args);
+                }
+
+                @Override
+                public void onError(long offset, Exception e) throws IOException {
+                    throw new IOException(e);
+                }
+            });
+        } finally {
+            in.close();
+        }
+
+        assertEquals(Arrays.asList(Arrays.asList("],\"[", "{"), Collections.<String>emptyList()), args);
+    }
+
+    @Test
+    public void readsEmptyArray() throws IOException {
+        write("[ ]");
+        Collector collector = new Collector();
+
+        read(reader(), collector);
+
+        assertTrue(collector.args.isEmpty());
+    }
+
+    @Test
+    public void reportsErrorsPerElement() throws IOException {
+        String json = "[{\"arg\":1},{\"arg\":\"x\"} , {\"arg\" 3},{\"arg\":4}]";
+        write(json);
+        Collector collector = new Collector();
+
+        read(reader(), collector);
+
+        assertEquals(Arrays.asList(1, 4), collector.args);
+        assertEquals(Arrays.asList((long) json.indexOf("{\"arg\":\"x\"}"), (long) json.indexOf("{\"arg\" 3}")), collector.errorOffsets);
+        assertTrue(collector.errors.get(1) instanceof MalformedJsonException);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void notAnArrayFails() throws IOException {
+        write("{\"arg\":1}");
+        read(reader(), new Collector());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void emptyElementFails() throws IOException {
+        write("[{\"arg\":1},]");
+        read(reader(), new Collector());
+    }
+
+    @Test(expected = EOFException.class)
+    public void unterminatedArrayFails() throws IOException {
+        write("[{\"arg\":1},{\"arg\":2}");
+        MappedJsonArrayReader<ConstructorArg> reader = reader();
+        reader.windowSize = 12;
+        read(reader, new Collector());
+    }
+
+    @Test(expected = IOException.class)
+    public void elementLargerThanWindowFails() throws IOException {
+        write("[{\"arg\":1,\"unknown\":\"xxxxxxxxxxxxxxxx\"}]");
+        MappedJsonArrayReader<ConstructorArg> reader = reader();
+        reader.windowSize = 16;
+        read(reader, new Collector());
+    }
+
+    private MappedJsonArrayReader<ConstructorArg> reader() {
+        return new MappedJsonArrayReader<>(gson.getAdapter(ConstructorArg.class), executor);
+    }
+
+    private void read(MappedJsonArrayReader<ConstructorArg> reader, Collector collector) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            reader.read(in.getChannel(), collector);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write(String json) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(json.getBytes(Utf8JsonReader.UTF_8));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String elements(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? ",\n  " : "").append("{\"arg\":").append(i).append(", \"unknown\":\"[{,\\\"\"}");
+        }
+        return json.append("]").toString();
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    static class Collector implements ValueCallback<ConstructorArg> {
+        final List<Integer> args = new ArrayList<>();
+        final List<Long> errorOffsets = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onValue(ConstructorArg value) {
+            args.add(value.arg);
+        }
+
+        @Override
+        public void onError(long offset, Exception e) {
+            errorOffsets.add(offset);
+            errors.add(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package me.tatarka.gsonvalue.stream;
+
+import me.tatarka.gsonvalue.internal.NameHash;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class NameTableTest {
+
+    @Test
+    public void findsAllNames() {
+        String[] names = new String[300];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "name" + i;
+        }
+        NameTable table = NameTable.of(names);
+
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(i, table.indexOf(names[i]));
+        }
+        assertEquals(-1, table.indexOf("name300"));
+        assertEquals(-1, table.indexOf(""));
+    }
+
+    @Test
+    public void findsNamesInBuffer() {
+        NameTable table = NameTable.of("one", "two", "three");
+        byte[] buffer = "xxthreexx".getBytes(Utf8JsonReader.UTF_8);
+        int h = table.seed;
+        for (int i = 2; i < 7; i++) {
+            h = NameHash.hash(h, (char) buffer[i]);
+        }
+
+        assertEquals(2, table.indexOf(h, buffer, 2, 5));
+    }
+
+    @Test
+    public void recomputesInvalidHash() {
+        NameTable table = new NameTable(0, new int[]{0}, "a", "b", "c", "d");
+
+        assertEquals(0, table.indexOf("a"));
+        assertEquals(3, table.indexOf("d"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateNamesFail() {
+        new NameTable(NameHash.DEFAULT_SEED, new int[]{0}, "a", "a");
+    }
+
+    @Test
+    public void emptyTable() {
+        NameTable table = NameTable.of();
+
+        assertEquals(-1, table.indexOf("a"));
+    }
+}
@@ -0,0 +1,157 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.MalformedJsonException;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.deserialize.ConstructorArg;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ParallelNdjsonReaderTest {
+
+    Gson gson;
+    ExecutorService executor;
+
+    @Before
+    public void setup() {
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void readsLinesInOrder() throws IOException {
+        ParallelNdjsonReader<ConstructorArg> reader = reader();
+        reader.setChunkSize(64);
+        reader.setMaxChunksInFlight(3);
+        Collector collector = new Collector();
+
+        reader.read(input(lines(1000), false), collector);
+
+        assertEquals(range(1000), collector.args);
+    }
+
+    @Test
+    public void readsLinesUnordered() throws IOException {
+        ParallelNdjsonReader<ConstructorArg> reader = reader();
+        reader.setChunkSize(64);
+        reader.setOrdered(false);
+        Collector collector = new Collector();
+
+        reader.read(input(lines(1000), false), collector);
+
+        Collections.sort(collector.args);
+        assertEquals(range(1000), collector.args);
+    }
+
+    @Test
+    public void readsLinesLongerThanChunks() throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"arg\":1,\"unknown\":\"");
+        for (int i = 0; i < 1000; i++) {
+            json.append('x');
+        }
+        json.append("\"}\r\n\n  \n{\"arg\":2}");
+        ParallelNdjsonReader<ConstructorArg> reader = reader();
+        reader.setChunkSize(16);
+        Collector collector = new Collector();
+
+        reader.read(input(json.toString(), true), collector);
+
+        assertEquals(range(1, 3), collector.args);
+    }
+
+    @Test
+    public void reportsErrorsPerLine() throws IOException {
+        String json = "{\"arg\":1}\n{\"arg\":\n{\"arg\":3} {\"arg\":4}\n{\"arg\":5}\n";
+        Collector collector = new Collector();
+
+        reader().read(input(json, false), collector);
+
+        assertEquals(range(1, 2), collector.args.subList(0, 1));
+        assertEquals(5, (int) collector.args.get(1));
+        assertEquals(2, collector.errors.size());
+        assertEquals(json.indexOf("{\"arg\":\n"), (long) collector.errorOffsets.get(0));
+        assertEquals(json.indexOf("{\"arg\":3}"), (long) collector.errorOffsets.get(1));
+        assertTrue(collector.errors.get(1) instanceof MalformedJsonException);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void errorThrownFromCallbackStopsReading() throws IOException {
+        reader().read(input("{\"arg\":1}\n{\"arg\" 2}\n{\"arg\":3}\n", false), new Collector() {
+            @Override
+            public void onError(long offset, Exception e) throws IOException {
+                throw (IOException) e;
+            }
+        });
+    }
+
+    private ParallelNdjsonReader<ConstructorArg> reader() {
+        return new ParallelNdjsonReader<>(gson.getAdapter(ConstructorArg.class), executor);
+    }
+
+    private static String lines(int count) {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            json.append("{\"arg\":").append(i).append("}\n");
+        }
+        return json.toString();
+    }
+
+    private static List<Integer> range(int count) {
+        return range(0, count);
+    }
+
+    private static List<Integer> range(int start, int end) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    private static InputStream input(String json, boolean oneByteAtATime) {
+        byte[] bytes = json.getBytes(Utf8JsonReader.UTF_8);
+        return oneByteAtATime ? new Utf8JsonReaderTest.OneByteInputStream(bytes) : new ByteArrayInputStream(bytes);
+    }
+
+    static class Collector implements ValueCallback<ConstructorArg> {
+        final List<Integer> args = new ArrayList<>();
+        final List<Long> errorOffsets = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onValue(ConstructorArg value) {
+            args.add(value.arg);
+        }
+
+        @Override
+        public void onError(long offset, Exception e) throws IOException {
+            errorOffsets.add(offset);
+            errors.add(e);
+        }
+    }
+}
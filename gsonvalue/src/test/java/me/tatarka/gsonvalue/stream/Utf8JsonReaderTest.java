@@ -0,0 +1,175 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.MalformedJsonException;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.deserialize.ComplexArg;
+import me.tatarka.gsonvalue.model.deserialize.ConstructorArg;
+import me.tatarka.gsonvalue.model.deserialize.NamedField;
+import me.tatarka.gsonvalue.model.deserialize.PrimitiveArgs;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class Utf8JsonReaderTest {
+
+    Gson gson;
+
+    @Before
+    public void setup() {
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+    }
+
+    @Test
+    public void readsValue() throws IOException {
+        assertEquals(1, read("{\"arg\":1}", ConstructorArg.class).arg);
+        assertEquals(1, read("{\"n\\u0061med\":1}", NamedField.class).arg);
+    }
+
+    @Test
+    public void readsPrimitives() throws IOException {
+        PrimitiveArgs args = read("{\"booleanArg\":true,\"intArg\":\"3\",\"longArg\":12345678901234567,\"doubleArg\":6.5e1,\"charArg\":\"\u00e9\"}", PrimitiveArgs.class);
+
+        assertEquals(true, args.booleanArg);
+        assertEquals(3, args.intArg);
+        assertEquals(12345678901234567L, args.longArg);
+        assertEquals(65, args.doubleArg, 0);
+        assertEquals('\u00e9', args.charArg);
+    }
+
+    @Test
+    public void readsValuesWithOtherAdapters() throws IOException {
+        ComplexArg value = read("{\"args\":[\"one\",\"\u00e9\u20ac\ud83d\ude00\"]}", ComplexArg.class);
+
+        assertEquals(Arrays.asList("one", "\u00e9\u20ac\ud83d\ude00"), value.args);
+    }
+
+    @Test
+    public void readsMultiByteStrings() throws IOException {
+        String value = "a\u00e9\u0800\u20ac\uffff\ud83d\ude00\ud800\udc00\udbff\udfff\\\"\n";
+        Utf8JsonReader in = new Utf8JsonReader(utf8("[" + gson.toJson(value) + "]"));
+        in.beginArray();
+        assertEquals(value, in.nextString());
+        in.endArray();
+    }
+
+    @Test
+    public void replacesMalformedUtf8() throws IOException {
+        byte[] json = {'"', 'a', (byte) 0xff, (byte) 0xc3, 'b', (byte) 0xe0, (byte) 0x80, (byte) 0x80, (byte) 0xed, (byte) 0xa0, (byte) 0x80, '"'};
+        assertEquals(new String(json, 1, json.length - 2, "UTF-8"), new Utf8JsonReader(json).nextString());
+    }
+
+    @Test
+    public void replacesTruncatedUtf8() throws IOException {
+        byte[] json = {'"', 'a', (byte) 0xf0, (byte) 0x9f, '"'};
+        assertEquals("a\ufffd\ufffd", new Utf8JsonReader(json).nextString());
+    }
+
+    @Test
+    public void selectsNonAsciiNames() throws IOException {
+        NameTable table = NameTable.of("a", "\u00e9t\u00e9", "b");
+        Utf8JsonReader in = new Utf8JsonReader(utf8("{\"\u00e9t\u00e9\":1,\"b\":2,\"\\u00e9t\\u00e9\":3,\"\u00e9\":4}"));
+        in.beginObject();
+        assertEquals(1, in.selectName(table));
+        assertEquals(1, in.nextInt());
+        assertEquals(2, in.selectName(table));
+        assertEquals(2, in.nextInt());
+        assertEquals(1, in.selectName(table));
+        assertEquals(3, in.nextInt());
+        assertEquals(-1, in.selectName(table));
+        assertEquals(4, in.nextInt());
+        in.endObject();
+    }
+
+    @Test
+    public void readsArrayRange() throws IOException {
+        byte[] bytes = utf8("xx{\"arg\":1}{\"arg\":2}");
+        Utf8JsonReader in = new Utf8JsonReader(bytes, 2, 9);
+        assertEquals(1, in.read(gson.getAdapter(ConstructorArg.class)).arg);
+        assertEquals(false, in.hasNext());
+    }
+
+    @Test
+    public void readsByteBuffers() throws IOException {
+        byte[] bytes = utf8("{\"arg\":1}");
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        assertEquals(1, new Utf8JsonReader(heap).read(gson.getAdapter(ConstructorArg.class)).arg);
+        assertEquals(1, new Utf8JsonReader(direct).read(gson.getAdapter(ConstructorArg.class)).arg);
+        assertEquals(0, heap.position());
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void readsAcrossBufferBoundaries() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"intArg\":").append(i).append(",\"longArg\":-1234567890123,\"doubleArg\":0.25,\"unknown\":\"\\u00e9\u00e9\u20ac\ud83d\ude00\",\"charArg\":\"\u20ac\"}");
+        }
+        json.append("]");
+        Utf8JsonReader in = new Utf8JsonReader(new OneByteInputStream(utf8(json.toString())));
+        in.beginArray();
+        for (int i = 0; i < 500; i++) {
+            PrimitiveArgs args = in.read(gson.getAdapter(PrimitiveArgs.class));
+            assertEquals(i, args.intArg);
+            assertEquals(-1234567890123L, args.longArg);
+            assertEquals(0.25, args.doubleArg, 0);
+            assertEquals('\u20ac', args.charArg);
+        }
+        in.endArray();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void unterminatedStringFails() throws IOException {
+        new Utf8JsonReader(utf8("\"abc")).nextString();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void nonAsciiValueFails() throws IOException {
+        new Utf8JsonReader(new byte[]{(byte) 0xff}).peek();
+    }
+
+    private <T> T read(String json, Class<T> type) throws IOException {
+        return new Utf8JsonReader(utf8(json)).read(gson.getAdapter(type));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(Utf8JsonReader.UTF_8);
+    }
+
+    static class OneByteInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+
+        OneByteInputStream(byte[] bytes) {
+            in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, 1));
+        }
+    }
+}
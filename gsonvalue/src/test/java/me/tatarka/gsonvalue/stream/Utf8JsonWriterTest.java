@@ -0,0 +1,224 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.serialize.ComplexArg;
+import me.tatarka.gsonvalue.model.serialize.EscapedNamedField;
+import me.tatarka.gsonvalue.model.serialize.NullableField;
+import me.tatarka.gsonvalue.model.serialize.PrimitiveFields;
+import me.tatarka.gsonvalue.model.serialize.PublicField;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class Utf8JsonWriterTest {
+
+    private static final String UNICODE = "a\u00e9\u0800\u20ac\uffff\ud83d\ude00\u2028\u2029\u0000\u001f<&>\n\"\\";
+
+    @Test
+    public void writesSameBytesAsJsonWriter() throws IOException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+
+        assertSameBytes(gson, new PrimitiveFields(true, 1, 2L, 0.1f, 0.5, '\u00e9', UNICODE));
+        assertSameBytes(gson, new ComplexArg(Arrays.asList("one", "\u20ac")));
+        assertSameBytes(gson, new NullableField(null));
+        assertSameBytes(gson, new NullableField(new PublicField(1)));
+        assertSameBytes(gson, new EscapedNamedField("="));
+    }
+
+    @Test
+    public void writesSameBytesAsJsonWriterWithoutHtmlEscaping() throws IOException {
+        Gson gson = new GsonBuilder()
+                .disableHtmlEscaping()
+                .serializeNulls()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+
+        assertSameBytes(gson, new PrimitiveFields(false, 0, 0, 0, 0, 'c', UNICODE));
+        assertSameBytes(gson, new NullableField(null));
+        assertSameBytes(gson, new EscapedNamedField("="));
+    }
+
+    @Test
+    public void writesUnpairedSurrogatesLikeJsonWriter() throws IOException {
+        Gson gson = new Gson();
+
+        assertSameBytes(gson, "\ud83d");
+        assertSameBytes(gson, "a\ude00b");
+        assertSameBytes(gson, "\ude00\ud83d");
+    }
+
+    @Test
+    public void writesAcrossBufferBoundaries() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            value.append("ab\u00e9\n\ud83d\ude00");
+        }
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            name.append('n');
+        }
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+
+        write(new JsonWriter(new OutputStreamWriter(expected, "UTF-8")), name.toString(), value.toString());
+        write(new Utf8JsonWriter(actual), name.toString(), value.toString());
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    public void writesToByteBuffer() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        Utf8JsonWriter out = new Utf8JsonWriter(buffer);
+        out.beginArray();
+        out.value("\u20ac");
+        out.endArray();
+        out.flush();
+
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals("[\"\u20ac\"]".getBytes("UTF-8"), bytes);
+    }
+
+    @Test
+    public void writesIntoHeapByteBufferFromItsPosition() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(9);
+        buffer.put((byte) 'x');
+        Utf8JsonWriter out = new Utf8JsonWriter(buffer);
+        out.value("a\u00e9\u20ac");
+        out.flush();
+
+        assertEquals(9, buffer.position());
+        assertArrayEquals("x\"a\u00e9\u20ac\"".getBytes("UTF-8"), buffer.array());
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void writingPastByteBufferFails() throws IOException {
+        Utf8JsonWriter out = new Utf8JsonWriter(ByteBuffer.allocate(2));
+        out.value("abc");
+        out.flush();
+    }
+
+    @Test
+    public void writesToChannel() throws IOException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+        PrimitiveFields value = new PrimitiveFields(true, 1, 2L, 0.1f, 0.5, '\u00e9', UNICODE);
+        File file = File.createTempFile("json", null);
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            Utf8JsonWriter out = new Utf8JsonWriter(stream.getChannel(), 16);
+            out.beginArray();
+            for (int i = 0; i < 100; i++) {
+                gson.toJson(value, PrimitiveFields.class, out);
+            }
+            out.endArray();
+            out.close();
+
+            StringBuilder expected = new StringBuilder("[");
+            for (int i = 0; i < 100; i++) {
+                expected.append(i > 0 ? "," : "").append(gson.toJson(value));
+            }
+            expected.append("]");
+            assertArrayEquals(expected.toString().getBytes("UTF-8"), readAll(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void writesNamesLargerThanThresholdToChannel() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            name.append('n');
+        }
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+
+        write(new JsonWriter(new OutputStreamWriter(expected, "UTF-8")), name.toString(), "value");
+        write(new Utf8JsonWriter(Channels.newChannel(actual), 8), name.toString(), "value");
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    public void nonBlockingChannelFails() throws IOException {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            new Utf8JsonWriter(pipe.sink());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooSmallThresholdFails() {
+        new Utf8JsonWriter(Channels.newChannel(new ByteArrayOutputStream()), 1);
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, count);
+            }
+            return bytes.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void write(JsonWriter out, String name, String value) throws IOException {
+        out.beginObject();
+        out.name(name);
+        out.value(value);
+        new JsonName(name, "\"" + name + "\"").writeTo(out);
+        out.jsonValue("\"" + value.replace("\n", "\\n") + "\"");
+        out.endObject();
+        out.close();
+    }
+
+    private static void assertSameBytes(Gson gson, Object value) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(expected, "UTF-8");
+        gson.toJson(value, value.getClass(), new JsonWriter(writer));
+        writer.flush();
+
+        Utf8JsonWriter out = new Utf8JsonWriter();
+        gson.toJson(value, value.getClass(), out);
+
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+    }
+}
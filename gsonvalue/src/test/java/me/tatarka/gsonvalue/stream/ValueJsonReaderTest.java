@@ -0,0 +1,391 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.deserialize.ComplexArg;
+import me.tatarka.gsonvalue.model.deserialize.ConstructorArg;
+import me.tatarka.gsonvalue.model.deserialize.NamedField;
+import me.tatarka.gsonvalue.model.deserialize.NullableField;
+import me.tatarka.gsonvalue.model.deserialize.PrimitiveArgs;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ValueJsonReaderTest {
+
+    Gson gson;
+
+    @Before
+    public void setup() {
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+    }
+
+    @Test
+    public void readsValue() throws IOException {
+        ConstructorArg value = read("{\"arg\":1}", ConstructorArg.class);
+
+        assertEquals(1, value.arg);
+    }
+
+    @Test
+    public void readsNamedValue() throws IOException {
+        NamedField value = read("{\"named\":1}", NamedField.class);
+
+        assertEquals(1, value.arg);
+    }
+
+    @Test
+    public void readsEscapedName() throws IOException {
+        NamedField value = read("{\"n\\u0061med\":1}", NamedField.class);
+
+        assertEquals(1, value.arg);
+    }
+
+    @Test
+    public void readsPrimitives() throws IOException {
+        PrimitiveArgs args = read("{\"booleanArg\":true,\"byteArg\":1,\"shortArg\":-2,\"intArg\":\"3\",\"longArg\":12345678901234567,\"floatArg\":5.5,\"doubleArg\":6.5e1,\"charArg\":\"c\"}", PrimitiveArgs.class);
+
+        assertTrue(args.booleanArg);
+        assertEquals(1, args.byteArg);
+        assertEquals(-2, args.shortArg);
+        assertEquals(3, args.intArg);
+        assertEquals(12345678901234567L, args.longArg);
+        assertEquals(5.5f, args.floatArg, 0);
+        assertEquals(65, args.doubleArg, 0);
+        assertEquals('c', args.charArg);
+    }
+
+    @Test
+    public void readsNullPrimitives() throws IOException {
+        PrimitiveArgs args = read("{\"booleanArg\":null,\"intArg\":null}", PrimitiveArgs.class);
+
+        assertFalse(args.booleanArg);
+        assertEquals(0, args.intArg);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void invalidNumberFails() throws IOException {
+        read("{\"intArg\":1.5}", PrimitiveArgs.class);
+    }
+
+    @Test
+    public void readsNestedValues() throws IOException {
+        NullableField value = read("{\"arg\":{\"arg\":1}}", NullableField.class);
+
+        assertEquals(1, value.arg.arg);
+    }
+
+    @Test
+    public void readsNull() throws IOException {
+        assertNull(read("null", ConstructorArg.class));
+        assertNull(read("{\"arg\":null}", NullableField.class).arg);
+    }
+
+    @Test
+    public void readsValuesWithOtherAdapters() throws IOException {
+        ComplexArg value = read("{\"args\":[\"one\",\"two\"]}", ComplexArg.class);
+
+        assertEquals(Arrays.asList("one", "two"), value.args);
+    }
+
+    @Test
+    public void readsMapsWithOtherAdapters() throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new OneCharReader("[{\"a\":1,\"\u00e9\\\"}\":2},{}]"));
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("a", 1);
+        expected.put("\u00e9\"}", 2);
+        TypeAdapter<Map<String, Integer>> adapter = gson.getAdapter(new TypeToken<Map<String, Integer>>() {
+        });
+        in.beginArray();
+        assertEquals(expected, in.read(adapter));
+        assertEquals(Collections.emptyMap(), in.read(adapter));
+        in.endArray();
+    }
+
+    @Test
+    public void readsTopLevelValuesWithOtherAdapters() throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new StringReader("\"a\\\"\" -1.5e2 true null [[1],[]] 7"));
+        assertEquals("a\"", in.read(gson.getAdapter(String.class)));
+        assertEquals(-150.0, in.read(gson.getAdapter(Double.class)), 0);
+        assertTrue(in.read(gson.getAdapter(Boolean.class)));
+        assertNull(in.read(gson.getAdapter(String.class)));
+        List<List<Integer>> lists = in.read(gson.getAdapter(new TypeToken<List<List<Integer>>>() {
+        }));
+        assertEquals(Arrays.asList(Collections.singletonList(1), Collections.<Integer>emptyList()), lists);
+        assertEquals(7, (int) in.read(gson.getAdapter(Integer.class)));
+        assertFalse(in.hasNext());
+    }
+
+    @Test
+    public void readsJsonElements() throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new StringReader("[1.50,\"x\",{\"a\":null}] {}"));
+        JsonArray array = in.nextJsonElement().getAsJsonArray();
+        assertEquals("1.50", array.get(0).getAsString());
+        assertEquals("x", array.get(1).getAsString());
+        assertTrue(array.get(2).getAsJsonObject().get("a").isJsonNull());
+        assertTrue(in.nextJsonElement().isJsonObject());
+        assertFalse(in.hasNext());
+    }
+
+    @Test
+    public void skipsUnknownNames() throws IOException {
+        ConstructorArg value = read("{\"other\":{\"a\":[1,true,null,\"\\\"]\"]},\"arg\":1,\"last\":[]}", ConstructorArg.class);
+
+        assertEquals(1, value.arg);
+    }
+
+    @Test
+    public void readsMultipleTopLevelValues() throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new StringReader("{\"arg\":1}\n{\"arg\":2}\n"));
+        assertEquals(1, in.read(gson.getAdapter(ConstructorArg.class)).arg);
+        assertTrue(in.hasNext());
+        assertEquals(2, in.read(gson.getAdapter(ConstructorArg.class)).arg);
+        assertFalse(in.hasNext());
+        assertEquals(JsonToken.END_DOCUMENT, in.peek());
+    }
+
+    @Test
+    public void readsAcrossBufferBoundaries() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"intArg\":").append(i).append(",\"longArg\":-1234567890123,\"doubleArg\":0.25,\"unknown\":\"\\u00e9\"}");
+        }
+        json.append("]");
+        ValueJsonReader in = new ValueJsonReader(new OneCharReader(json.toString()));
+        in.beginArray();
+        for (int i = 0; i < 500; i++) {
+            PrimitiveArgs args = in.read(gson.getAdapter(PrimitiveArgs.class));
+            assertEquals(i, args.intArg);
+            assertEquals(-1234567890123L, args.longArg);
+            assertEquals(0.25, args.doubleArg, 0);
+        }
+        in.endArray();
+    }
+
+    @Test
+    public void skipsNumbersAcrossBufferBoundaries() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"arg\":").append(i).append(",\"ignore\":-12.5e3}");
+        }
+        ValueJsonReader in = new ValueJsonReader(new StringReader(json.append("]").toString()));
+        in.beginArray();
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, in.read(gson.getAdapter(ConstructorArg.class)).arg);
+        }
+        in.endArray();
+    }
+
+    @Test
+    public void readsNonAsciiChars() throws IOException {
+        String value = "\u00e9\u20ac\ud83d\ude00\ud800x\udc00";
+        NameTable table = NameTable.of("a", "\u00e9t\u00e9");
+        ValueJsonReader in = new ValueJsonReader(new OneCharReader("{\"\u00e9t\u00e9\":\"" + value + "\",\"" + value + "\":1}"));
+        in.beginObject();
+        assertEquals(1, in.selectName(table));
+        assertEquals(value, in.nextString());
+        assertEquals(value, in.nextName());
+        assertEquals(1, in.nextInt());
+        in.endObject();
+    }
+
+    @Test
+    public void readsLongNames() throws IOException {
+        char[] name = new char[5000];
+        Arrays.fill(name, 'a');
+        String longName = new String(name);
+        NameTable table = NameTable.of("arg", longName);
+        ValueJsonReader in = new ValueJsonReader(new OneCharReader("{\"" + longName + "\":1,\"arg\":2}"));
+        in.beginObject();
+        assertEquals(1, in.selectName(table));
+        assertEquals(1, in.nextInt());
+        assertEquals(0, in.selectName(table));
+        assertEquals(2, in.nextInt());
+        in.endObject();
+    }
+
+    @Test
+    public void selectsNamesInAnyOrder() throws IOException {
+        NameTable table = NameTable.of("a", "ab", "b");
+        ValueJsonReader in = new ValueJsonReader(new StringReader("{\"ab\":1,\"a\":2,\"c\":3,\"b\":4,\"a\":5}"));
+        in.beginObject();
+        assertEquals(1, in.selectName(table));
+        in.skipValue();
+        assertEquals(0, in.selectName(table));
+        in.skipValue();
+        assertEquals(-1, in.selectName(table));
+        in.skipValue();
+        assertEquals(2, in.selectName(table));
+        in.skipValue();
+        assertEquals(0, in.selectName(table));
+        in.skipValue();
+        in.endObject();
+    }
+
+    @Test
+    public void learnsNameOrder() throws IOException {
+        NameTable table = NameTable.of("a", "b", "c");
+        ValueJsonReader in = new ValueJsonReader(new StringReader("{\"c\":1,\"b\":2,\"a\":3}"));
+        in.beginObject();
+        while (in.hasNext()) {
+            in.selectName(table);
+            in.skipValue();
+        }
+        in.endObject();
+
+        int[] order = in.nameOrder(table);
+        assertEquals(2, order[-1 + 1]);
+        assertEquals(1, order[2 + 1]);
+        assertEquals(0, order[1 + 1]);
+        // Other readers still start from the declared order.
+        assertArrayEquals(table.declaredOrder(), new ValueJsonReader(new StringReader("")).nameOrder(table));
+    }
+
+    @Test
+    public void selectsNamesInNestedObjects() throws IOException {
+        NameTable table = NameTable.of("a", "b");
+        ValueJsonReader in = new ValueJsonReader(new StringReader("{\"a\":{\"a\":1,\"b\":2},\"b\":{\"b\":3}}"));
+        in.beginObject();
+        assertEquals(0, in.selectName(table));
+        in.beginObject();
+        assertEquals(0, in.selectName(table));
+        assertEquals(1, in.nextInt());
+        assertEquals(1, in.selectName(table));
+        assertEquals(2, in.nextInt());
+        in.endObject();
+        assertEquals(1, in.selectName(table));
+        in.beginObject();
+        assertEquals(1, in.selectName(table));
+        assertEquals(3, in.nextInt());
+        in.endObject();
+        in.endObject();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void unterminatedExpectedNameFails() throws IOException {
+        NameTable table = NameTable.of("arg");
+        ValueJsonReader in = new ValueJsonReader(new StringReader("{\"arg"));
+        in.beginObject();
+        in.selectName(table);
+    }
+
+    @Test
+    public void readsStrings() throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new StringReader("[\"a\\\"b\\\\c\\/d\\n\\u00e9\", 12.50]"));
+        in.beginArray();
+        assertEquals("a\"b\\c/d\n\u00e9", in.nextString());
+        assertEquals("12.50", in.nextString());
+        in.endArray();
+    }
+
+    @Test
+    public void readsNumbersLikeJsonReader() throws IOException {
+        ValueJsonReader in = new ValueJsonReader(new StringReader("[-0,0,-0.0,1e2,1E+2,-1.5e-2,-9223372036854775808]"));
+        in.beginArray();
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(in.nextDouble()));
+        assertEquals(Double.doubleToLongBits(0.0), Double.doubleToLongBits(in.nextDouble()));
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(in.nextDouble()));
+        assertEquals(100, in.nextLong());
+        assertEquals(100, in.nextInt());
+        assertEquals(-0.015, in.nextDouble(), 0);
+        assertEquals(Long.MIN_VALUE, in.nextLong());
+        in.endArray();
+    }
+
+    @Test
+    public void malformedNumbersFail() throws IOException {
+        for (String number : new String[]{"01", "-01", "1e", "1e+", "1.", "1.e2", "-", "--1", "1-", "1e2e3", "1.5.3", "1x", "0x10"}) {
+            for (boolean skip : new boolean[]{false, true}) {
+                ValueJsonReader in = new ValueJsonReader(new StringReader("[" + number + "]"));
+                in.beginArray();
+                try {
+                    if (skip) {
+                        in.skipValue();
+                    } else {
+                        in.nextDouble();
+                    }
+                    fail("Expected " + number + " to fail");
+                } catch (MalformedJsonException expected) {
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nanAndInfinitiesFail() throws IOException {
+        for (String value : new String[]{"\"NaN\"", "\"Infinity\"", "\"-Infinity\"", "1e400"}) {
+            ValueJsonReader in = new ValueJsonReader(new StringReader(value));
+            try {
+                in.nextDouble();
+                fail("Expected " + value + " to fail");
+            } catch (MalformedJsonException expected) {
+            }
+        }
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void malformedJsonFails() throws IOException {
+        read("{\"arg\" 1}", ConstructorArg.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unexpectedTokenFails() throws IOException {
+        read("[]", ConstructorArg.class);
+    }
+
+    private <T> T read(String json, Class<T> type) throws IOException {
+        return new ValueJsonReader(new StringReader(json)).read(gson.getAdapter(type));
+    }
+
+    static class OneCharReader extends Reader {
+        private final String value;
+        private int pos;
+
+        OneCharReader(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == value.length()) {
+                return -1;
+            }
+            cbuf[off] = value.charAt(pos++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package me.tatarka.gsonvalue.stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import me.tatarka.gsonvalue.ValueTypeAdapterFactory;
+import me.tatarka.gsonvalue.model.serialize.ComplexArg;
+import me.tatarka.gsonvalue.model.serialize.EscapedNamedField;
+import me.tatarka.gsonvalue.model.serialize.NullableField;
+import me.tatarka.gsonvalue.model.serialize.PrimitiveFields;
+import me.tatarka.gsonvalue.model.serialize.PublicField;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class ValueJsonWriterTest {
+
+    @Test
+    public void writesSameJsonAsJsonWriter() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+
+        assertSameJson(gson, new PrimitiveFields(true, 1, 2L, 0.1f, 0.5, 'c', "s\n\"\u2028"));
+        assertSameJson(gson, new ComplexArg(Arrays.asList("one", "two")));
+        assertSameJson(gson, new NullableField(null));
+        assertSameJson(gson, new NullableField(new PublicField(1)));
+    }
+
+    @Test
+    public void writesSameJsonAsJsonWriterWithSerializeNulls() {
+        Gson gson = new GsonBuilder()
+                .serializeNulls()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+
+        assertSameJson(gson, new NullableField(null));
+        assertSameJson(gson, new PrimitiveFields(false, 0, 0, 0, 0, 'c', null));
+    }
+
+    @Test
+    public void escapesHtmlInNames() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+
+        assertEquals("{\"\\u003c\\\"named\\\"\\u003e\":\"\\u003d\"}", toJson(gson, new EscapedNamedField("=")));
+        assertSameJson(gson, new EscapedNamedField("="));
+    }
+
+    @Test
+    public void writesNamesAsIsWithoutHtmlEscaping() {
+        Gson gson = new GsonBuilder()
+                .disableHtmlEscaping()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+
+        assertEquals("{\"<\\\"named\\\">\":\"=\"}", toJson(gson, new EscapedNamedField("=")));
+        assertSameJson(gson, new EscapedNamedField("="));
+    }
+
+    @Test
+    public void writesArrayOfValues() throws IOException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+        StringWriter writer = new StringWriter();
+        ValueJsonWriter out = new ValueJsonWriter(writer);
+        out.beginArray();
+        gson.getAdapter(PublicField.class).write(out, new PublicField(1));
+        gson.getAdapter(PublicField.class).write(out, new PublicField(2));
+        out.endArray();
+        out.close();
+
+        assertEquals("[{\"arg\":1},{\"arg\":2}]", writer.toString());
+    }
+
+    @Test
+    public void writesSameJsonAsJsonWriterWithIndent() throws IOException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new ValueTypeAdapterFactory())
+                .create();
+        Object value = new ComplexArg(Arrays.asList("one", "two"));
+
+        StringWriter expected = new StringWriter();
+        JsonWriter jsonWriter = new JsonWriter(expected);
+        jsonWriter.setIndent("  ");
+        gson.toJson(value, value.getClass(), jsonWriter);
+        StringWriter actual = new StringWriter();
+        ValueJsonWriter valueJsonWriter = new ValueJsonWriter(actual);
+        valueJsonWriter.setIndent("  ");
+        gson.toJson(value, value.getClass(), valueJsonWriter);
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void indentAppliesFromTheNextTopLevelValue() throws IOException {
+        StringWriter writer = new StringWriter();
+        ValueJsonWriter out = new ValueJsonWriter(writer);
+        out.setLenient(true);
+        out.beginArray().value(1).endArray();
+        out.setIndent("\t");
+        out.beginArray().value(2).beginObject().endObject().endArray();
+        out.setIndent("");
+        out.beginArray().value(3).endArray();
+
+        assertEquals("[1][\n\t2,\n\t{}\n][3]", writer.toString());
+    }
+
+    @Test
+    public void overridesEveryJsonWriterMethod() throws NoSuchMethodException {
+        for (Method method : JsonWriter.class.getDeclaredMethods()) {
+            int modifiers = method.getModifiers();
+            if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)
+                    || method.getName().equals("isLenient")) {
+                continue;
+            }
+            assertEquals(method.toString(), ValueJsonWriter.class,
+                    ValueJsonWriter.class.getMethod(method.getName(), method.getParameterTypes()).getDeclaringClass());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void danglingNameFails() throws IOException {
+        ValueJsonWriter out = new ValueJsonWriter(new StringWriter());
+        out.beginObject();
+        out.name(new JsonName("arg", "\"arg\""));
+        out.endObject();
+    }
+
+    @Test(expected = IOException.class)
+    public void closingIncompleteDocumentFails() throws IOException {
+        ValueJsonWriter out = new ValueJsonWriter(new StringWriter());
+        out.beginArray();
+        out.close();
+    }
+
+    private static void assertSameJson(Gson gson, Object value) {
+        assertEquals(gson.toJson(value), toJson(gson, value));
+    }
+
+    private static String toJson(Gson gson, Object value) {
+        StringWriter writer = new StringWriter();
+        gson.toJson(value, value.getClass(), new ValueJsonWriter(writer));
+        return writer.toString();
+    }
+}